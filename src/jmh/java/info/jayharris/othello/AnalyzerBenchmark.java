@@ -0,0 +1,45 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Color;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link OthelloAnalyzer} on the corpus of {@link BoardBenchmark},
+ * packed: each invocation analyzes all {@value BoardBenchmark#POSITIONS}
+ * positions as one batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({"0", "2"})
+    int depth;
+
+    OthelloAnalyzer analyzer;
+    ByteBuffer packed;
+    Color[] toMove;
+
+    @Setup
+    public void setUp() {
+        Positions positions = Positions.midGame(BoardBenchmark.POSITIONS, 12, 44);
+        packed = ByteBuffer.allocate(BoardBenchmark.POSITIONS * OthelloPositionCodec.PACKED_SIZE);
+        for (Othello.Board board : positions.boards) {
+            OthelloPositionCodec.pack(board, packed);
+        }
+        toMove = positions.toMove;
+        analyzer = new OthelloAnalyzer(new OthelloPositionalEvaluator(), depth);
+    }
+
+    @Benchmark
+    public OthelloAnalyzer.Results analyze() {
+        packed.rewind();
+        return analyzer.analyze(packed, toMove);
+    }
+}
@@ -0,0 +1,157 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the basic {@link Board} operations over a corpus of mid-game
+ * positions. Each invocation covers the whole corpus, so scores are per
+ * {@value #POSITIONS} positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    static final int POSITIONS = 256;
+
+    Positions positions;
+    Board.Square[][] legal;
+    Board.Move[] moves;
+    int[] buffer;
+    String[] texts;
+    ByteBuffer packed;
+    Board scratch;
+
+    @Setup
+    public void setUp() {
+        positions = Positions.midGame(POSITIONS, 12, 44);
+        legal = new Board.Square[POSITIONS][];
+        moves = new Board.Move[POSITIONS];
+        buffer = new int[64];
+        texts = new String[POSITIONS];
+        packed = ByteBuffer.allocate(POSITIONS * OthelloPositionCodec.PACKED_SIZE);
+        scratch = positions.boards[0].copy();
+
+        for (int i = 0; i < POSITIONS; ++i) {
+            Board board = positions.boards[i];
+            legal[i] = OthelloUtils.getAllMoves(board, positions.toMove[i]).toArray(new Board.Square[0]);
+            moves[i] = board.new Move();
+            texts[i] = OthelloPositionCodec.format(board, positions.toMove[i]);
+            OthelloPositionCodec.pack(board, packed);
+        }
+    }
+
+    /**
+     * Plays and takes back every legal move in each position. This is the
+     * {@code setPiece} path the search uses; a plain {@code setPiece} can't
+     * be repeated on the same board.
+     */
+    @Benchmark
+    public int setPiece() {
+        int flips = 0;
+        for (int i = 0; i < POSITIONS; ++i) {
+            Board board = positions.boards[i];
+            Color color = positions.toMove[i];
+            Board.Move move = moves[i];
+            for (Board.Square square : legal[i]) {
+                board.applyMove(square, color, move);
+                flips += move.getFlipCount();
+                board.undoMove(move);
+            }
+        }
+        return flips;
+    }
+
+    /**
+     * Tests every empty square of each position for legality.
+     */
+    @Benchmark
+    public int isLegal() {
+        int count = 0;
+        for (int i = 0; i < POSITIONS; ++i) {
+            Board board = positions.boards[i];
+            Color color = positions.toMove[i];
+            for (Board.Square square : board.getAccessible()) {
+                if (board.isLegal(square, color)) {
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public void getAllMoves(Blackhole blackhole) {
+        for (int i = 0; i < POSITIONS; ++i) {
+            blackhole.consume(OthelloUtils.getAllMoves(positions.boards[i], positions.toMove[i]));
+        }
+    }
+
+    @Benchmark
+    public int getMoves() {
+        int count = 0;
+        for (int i = 0; i < POSITIONS; ++i) {
+            count += positions.boards[i].getMoves(positions.toMove[i], buffer);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public void getStableDiscs(Blackhole blackhole) {
+        for (int i = 0; i < POSITIONS; ++i) {
+            blackhole.consume(OthelloUtils.getStableDiscs(positions.boards[i]));
+        }
+    }
+
+    @Benchmark
+    public int getStableCount() {
+        int count = 0;
+        for (int i = 0; i < POSITIONS; ++i) {
+            count += positions.boards[i].getStableCount(positions.toMove[i]);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public void copy(Blackhole blackhole) {
+        for (int i = 0; i < POSITIONS; ++i) {
+            blackhole.consume(positions.boards[i].copy());
+        }
+    }
+
+    /**
+     * Loads each position from its text form into one reused board.
+     */
+    @Benchmark
+    public int parse() {
+        int count = 0;
+        for (String text : texts) {
+            OthelloPositionCodec.parse(text, scratch);
+            count += scratch.getStableCount(Color.BLACK);
+        }
+        return count;
+    }
+
+    /**
+     * Loads each position from its packed form into one reused board.
+     */
+    @Benchmark
+    public int unpack() {
+        int count = 0;
+        packed.rewind();
+        while (packed.hasRemaining()) {
+            OthelloPositionCodec.unpack(packed, scratch);
+            count += scratch.getStableCount(Color.BLACK);
+        }
+        return count;
+    }
+}
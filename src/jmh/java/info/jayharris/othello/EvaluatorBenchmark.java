@@ -0,0 +1,73 @@
+package info.jayharris.othello;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the evaluators over the corpus of {@link BoardBenchmark}.
+ *
+ * The boards remember their mobility once counted, so after the first
+ * invocation {@link #positionalWithMobility()} measures the cached path, as
+ * a search evaluating a position more than once would see it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+    Positions positions;
+    OthelloEvaluator positional, positionalWithMobility, pattern;
+
+    @Setup
+    public void setUp() {
+        positions = Positions.midGame(BoardBenchmark.POSITIONS, 12, 44);
+        positional = new OthelloPositionalEvaluator();
+        positionalWithMobility = new OthelloPositionalEvaluator(5);
+        pattern = new OthelloPatternEvaluator();
+    }
+
+    @Benchmark
+    public int positional() {
+        return evaluate(positional);
+    }
+
+    @Benchmark
+    public int positionalWithMobility() {
+        return evaluate(positionalWithMobility);
+    }
+
+    @Benchmark
+    public int pattern() {
+        return evaluate(pattern);
+    }
+
+    /**
+     * Reads the features other than mobility. Potential mobility is counted
+     * on the first read in each position and cached, so after the first
+     * iteration this measures the cached reads.
+     */
+    @Benchmark
+    public int features() {
+        int sum = 0;
+        for (int i = 0; i < BoardBenchmark.POSITIONS; ++i) {
+            Othello.Board board = positions.boards[i];
+            for (Othello.Color color : Othello.Color.values()) {
+                sum += board.getPotentialMobility(color) + board.getFrontierCount(color) +
+                        board.getCornerCount(color) + board.getXSquareCount(color);
+            }
+        }
+        return sum;
+    }
+
+    private int evaluate(OthelloEvaluator evaluator) {
+        int score = 0;
+        for (int i = 0; i < BoardBenchmark.POSITIONS; ++i) {
+            score += evaluator.evaluate(positions.boards[i], positions.toMove[i]);
+        }
+        return score;
+    }
+}
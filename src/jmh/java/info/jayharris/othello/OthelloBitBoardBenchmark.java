@@ -0,0 +1,67 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Color;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks move generation and flipping on {@link OthelloBitBoard} over
+ * the same corpus as {@link BoardBenchmark}, for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OthelloBitBoardBenchmark {
+
+    long[] own, opp;
+
+    @Setup
+    public void setUp() {
+        Positions positions = Positions.midGame(BoardBenchmark.POSITIONS, 12, 44);
+        own = new long[BoardBenchmark.POSITIONS];
+        opp = new long[BoardBenchmark.POSITIONS];
+
+        for (int i = 0; i < BoardBenchmark.POSITIONS; ++i) {
+            OthelloBitBoard bitboard = OthelloBitBoard.from(positions.boards[i]);
+            Color color = positions.toMove[i];
+            own[i] = bitboard.getDiscs(color);
+            opp[i] = bitboard.getDiscs(color.opposite());
+        }
+    }
+
+    @Benchmark
+    public long moves() {
+        long x = 0L;
+        for (int i = 0; i < own.length; ++i) {
+            x ^= OthelloBitBoard.moves(own[i], opp[i]);
+        }
+        return x;
+    }
+
+    /**
+     * Computes the flips for every legal move in each position.
+     */
+    @Benchmark
+    public long flips() {
+        long x = 0L;
+        for (int i = 0; i < own.length; ++i) {
+            for (long legal = OthelloBitBoard.moves(own[i], opp[i]); legal != 0L; legal &= legal - 1) {
+                x ^= OthelloBitBoard.flips(Long.numberOfTrailingZeros(legal), own[i], opp[i]);
+            }
+        }
+        return x;
+    }
+
+    @Benchmark
+    public int canonicalSymmetry() {
+        int x = 0;
+        for (int i = 0; i < own.length; ++i) {
+            x += OthelloSymmetry.canonicalSymmetry(own[i], opp[i]);
+        }
+        return x;
+    }
+}
@@ -0,0 +1,34 @@
+package info.jayharris.othello;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures raw move generation with {@link OthelloPerft}: each invocation
+ * counts the {@value #LEAVES} leaves {@value #DEPTH} plies from the initial
+ * position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerftBenchmark {
+
+    static final int DEPTH = 8;
+    static final long LEAVES = 390216L;
+
+    OthelloPerft perft;
+
+    @Setup
+    public void setUp() {
+        perft = new OthelloPerft(Othello.Board.DEFAULT_SQUARES_PER_SIDE, DEPTH);
+    }
+
+    @Benchmark
+    public long perft() {
+        return perft.count(DEPTH);
+    }
+}
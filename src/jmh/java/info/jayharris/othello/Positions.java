@@ -0,0 +1,71 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+
+import java.util.Random;
+
+/**
+ * A reproducible corpus of mid-game positions for the benchmarks.
+ *
+ * Each position is reached by playing random legal moves from the initial
+ * position, so the corpus looks like the positions a search actually sees
+ * rather than hand-picked ones.
+ */
+final class Positions {
+
+    static final long SEED = 20160801L;
+
+    final Board[] boards;
+    final Color[] toMove;
+
+    private Positions(int size) {
+        boards = new Board[size];
+        toMove = new Color[size];
+    }
+
+    /**
+     * Builds {@code size} positions, each between {@code minPly} and
+     * {@code maxPly} plies into a random game, with at least one legal move
+     * for the side to move.
+     *
+     * @param size the number of positions
+     * @param minPly the fewest plies to play
+     * @param maxPly the most plies to play
+     * @return the corpus
+     */
+    static Positions midGame(int size, int minPly, int maxPly) {
+        Random random = new Random(SEED);
+        Positions positions = new Positions(size);
+
+        int n = 0;
+        while (n < size) {
+            Board board = new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class).board;
+            Color color = Color.BLACK;
+            int plies = minPly + random.nextInt(maxPly - minPly + 1);
+
+            for (int ply = 0; ply < plies && color != null; ++ply) {
+                board.setPiece(randomMove(board, color, random), color);
+                color = next(board, color);
+            }
+            if (color != null) {
+                positions.boards[n] = board;
+                positions.toMove[n] = color;
+                ++n;
+            }
+        }
+        return positions;
+    }
+
+    private static Board.Square randomMove(Board board, Color color, Random random) {
+        int[] moves = new int[board.SQUARES_PER_SIDE * board.SQUARES_PER_SIDE];
+        return board.getSquare(moves[random.nextInt(board.getMoves(color, moves))]);
+    }
+
+    private static Color next(Board board, Color color) {
+        if (board.hasMove(color.opposite())) {
+            return color.opposite();
+        }
+        return board.hasMove(color) ? color : null;
+    }
+}
@@ -0,0 +1,24 @@
+package info.jayharris.othello;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures complete games between two {@link OthelloPlayerRandomMove}
+ * players, so the score is whole games per second including the game loop
+ * and the players' own overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelfPlayBenchmark {
+
+    @Benchmark
+    public OthelloPlayer randomGame() {
+        return new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class).play();
+    }
+}
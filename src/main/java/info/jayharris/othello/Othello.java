@@ -5,19 +5,20 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 import java.util.function.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class Othello {
 
+    // the position the game is played on, and the same board as a Board
+    // for work that needs squares, or null if it's another kind of board
+    protected final OthelloBoard position;
     protected final Board board;
     protected final OthelloPlayer black, white;
     private OthelloPlayer current;
+    private OthelloPlyListener plyListener;
+    private final Random random;
 
     public enum Color {
         BLACK, WHITE;
@@ -39,30 +40,151 @@ public class Othello {
         this(OthelloPlayerWithKeyboard.class, OthelloPlayerWithKeyboard.class);
     }
 
+    /**
+     * Creates a game between players of the given types, built with their
+     * {@code (Othello, Color)} constructors.
+     *
+     * This looks the constructors up by reflection on every call; to set up
+     * many games, use {@link OthelloPlayerFactory}s or an
+     * {@link OthelloPlayerRegistry} instead.
+     *
+     * @param blacktype the type of the black player
+     * @param whitetype the type of the white player
+     * @throws IllegalArgumentException if either type can't be built
+     * @see OthelloPlayerFactory#of(Class)
+     */
     public Othello(Class<? extends OthelloPlayer> blacktype, Class<? extends OthelloPlayer> whitetype) {
-        board = new Board();
-        initBoard();
-
-        black = this.buildPlayer(blacktype, Color.BLACK);
-        white = this.buildPlayer(whitetype, Color.WHITE);
-        current = this.black;
+        this(OthelloPlayerFactory.of(blacktype), OthelloPlayerFactory.of(whitetype), new Random());
     }
 
     public Othello(OthelloPlayer black, OthelloPlayer white) {
-        board = new Board();
+        position = board = new Board();
         initBoard();
 
         this.black = black;
         this.white = white;
+        this.random = null;
+        current = this.black;
+    }
+
+    /**
+     * Creates a game whose players are built by the given factories, both
+     * drawing on {@code random}, so that a game can be replayed from the
+     * seed of {@code random}.
+     *
+     * @param black builds the black player
+     * @param white builds the white player
+     * @param random the game's source of randomness
+     */
+    public Othello(OthelloPlayerFactory black, OthelloPlayerFactory white, Random random) {
+        this(Board.DEFAULT_SQUARES_PER_SIDE, black, white, random);
+    }
+
+    /**
+     * Creates a game on a board of another size, whose players are built by
+     * the given factories, both drawing on {@code random}.
+     *
+     * Only the standard 8x8 board has pattern indices, opening books,
+     * bitboards and archives; players and evaluators that rely on them
+     * need the standard board.
+     *
+     * @param squaresPerSide the number of squares on a side of the board, even
+     * @param black builds the black player
+     * @param white builds the white player
+     * @param random the game's source of randomness
+     * @throws IllegalArgumentException if the size isn't supported
+     * @see Board#Board(int)
+     */
+    public Othello(int squaresPerSide, OthelloPlayerFactory black, OthelloPlayerFactory white, Random random) {
+        position = board = new Board(squaresPerSide);
+        initBoard();
+
+        this.black = black.newPlayer(this, Color.BLACK, random);
+        this.white = white.newPlayer(this, Color.WHITE, random);
+        this.random = random;
+        current = this.black;
+    }
+
+    /**
+     * Creates a game played on {@code position}, such as an
+     * {@link OthelloBitBoard}, whose players are built by the given
+     * factories, both drawing on {@code random}. Whatever is on the board is
+     * cleared and the initial position set up.
+     *
+     * Such a game has no {@link Board}, so it can only be played by players
+     * that choose their moves through {@link OthelloBoard}, as the players
+     * in this package do.
+     *
+     * @param position the board to play on
+     * @param black builds the black player
+     * @param white builds the white player
+     * @param random the game's source of randomness
+     */
+    public Othello(OthelloBoard position, OthelloPlayerFactory black, OthelloPlayerFactory white, Random random) {
+        this.position = Preconditions.checkNotNull(position);
+        board = position instanceof Board ? (Board) position : null;
+        position.reset();
+        initBoard();
+
+        this.black = black.newPlayer(this, Color.BLACK, random);
+        this.white = white.newPlayer(this, Color.WHITE, random);
+        this.random = random;
         current = this.black;
     }
 
+    /**
+     * Sets up a new game between the same players, reusing this game's
+     * board rather than building a new one.
+     *
+     * @see Board#reset()
+     * @see OthelloPlayer#reset()
+     */
+    public void reset() {
+        position.reset();
+        initBoard();
+        plyListener = null;
+        current = black;
+
+        black.reset();
+        white.reset();
+    }
+
+    /**
+     * Sets up a new game between the same players, as {@link #reset()},
+     * and reseeds the game's source of randomness, so that the new game
+     * plays out exactly like a game created with {@code new Random(seed)}.
+     *
+     * @param seed the seed
+     * @throws IllegalStateException if the game wasn't created with a
+     *  {@link Random} for its players
+     */
+    public void reset(long seed) {
+        Preconditions.checkState(random != null, "this game's players don't share a Random");
+        random.setSeed(seed);
+        reset();
+    }
+
+    /**
+     * Lets go of whatever the players hold, such as search threads. The
+     * game mustn't be played afterwards.
+     *
+     * @see OthelloPlayer#close()
+     */
+    public void close() {
+        black.close();
+        white.close();
+    }
+
     private void initBoard() {
-        int p = board.SQUARES_PER_SIDE / 2 - 1;
-        board.forceSetPiece(board.getSquare(p, p), Color.WHITE);
-        board.forceSetPiece(board.getSquare(p + 1, p), Color.BLACK);
-        board.forceSetPiece(board.getSquare(p, p + 1), Color.BLACK);
-        board.forceSetPiece(board.getSquare(p + 1, p + 1), Color.WHITE);
+        initBoard(position);
+    }
+
+    private static void initBoard(OthelloBoard position) {
+        int n = position.getSquaresPerSide(), p = n / 2 - 1;
+        position.setDisc(p * n + p, Color.WHITE);
+        position.setDisc((p + 1) * n + p, Color.BLACK);
+        position.setDisc(p * n + p + 1, Color.BLACK);
+        position.setDisc((p + 1) * n + p + 1, Color.WHITE);
     }
 
     public OthelloPlayer play() {
@@ -70,7 +192,7 @@ public class Othello {
 
         while (nextPly() != null);
 
-        return (winner = OthelloUtils.winner(board)) == null ? null : (winner == Color.WHITE ? white : black);
+        return (winner = OthelloUtils.winner(position)) == null ? null : (winner == Color.WHITE ? white : black);
     }
 
     /**
@@ -83,10 +205,14 @@ public class Othello {
      *  neither player can move
      */
     protected OthelloPlayer nextPly() {
-        Board.Square move;
+        int move, n = position.getSquaresPerSide();
         do {
             move = current.getMove();
-        } while (!board.setPiece(move, current.color));
+            Preconditions.checkElementIndex(move, n * n);
+        } while (!position.setPiece(move / n, move % n, current.color));
+        if (plyListener != null) {
+            plyListener.ply(current.color, move);
+        }
 
         if (hasMoveFor(getOtherPlayer())) {
             current = getOtherPlayer();
@@ -94,9 +220,21 @@ public class Othello {
         else if (!hasMoveFor(current)) {
             current = null;
         }
+        else if (plyListener != null) {
+            plyListener.ply(getOtherPlayer().color, OthelloBoard.NO_MOVE);
+        }
         return current;
     }
 
+    /**
+     * Sets the listener to tell about each ply played, including passes.
+     *
+     * @param plyListener the listener, or {@code null} for none
+     */
+    public void setPlyListener(OthelloPlyListener plyListener) {
+        this.plyListener = plyListener;
+    }
+
     /**
      * Determines if there's at least one legal move for {@code player}.
      *
@@ -104,7 +242,16 @@ public class Othello {
      * @return {@code true} iff there's at least one legal move for {@code player}
      */
     public boolean hasMoveFor(OthelloPlayer player) {
-        return board.hasMove(player.color);
+        return position.hasMove(player.color);
+    }
+
+    /**
+     * Gets the board the game is played on.
+     *
+     * @return the board
+     */
+    public OthelloBoard getPosition() {
+        return position;
     }
 
     /**
@@ -125,17 +272,6 @@ public class Othello {
         return current == white ? black : white;
     }
 
-    private OthelloPlayer buildPlayer(Class<? extends OthelloPlayer> type, Color color) {
-        try {
-            Constructor ctor = type.getConstructor(Othello.class, Othello.Color.class);
-            return (OthelloPlayer) ctor.newInstance(this, color);
-        }
-        catch(NoSuchMethodException|InvocationTargetException|InstantiationException|IllegalAccessException e) {
-            e.printStackTrace();
-        }
-        return new OthelloPlayerWithKeyboard(this, color);
-    }
-
     /**
      * Gets the square referred to via algebraic notation.
      *
@@ -146,18 +282,101 @@ public class Othello {
      * @return the square
      * @throws java.lang.IllegalArgumentException if the algebraic notation
      * is invalid or refers to a non-existent square
+     * @throws IllegalStateException if the game isn't played on a {@link Board}
      */
     public Board.Square getSquare(String square) {
+        Preconditions.checkState(board != null, "not played on squares");
         return board.getSquare(square);
     }
 
-    public class Board {
+    /**
+     * Builds a {@link Board} in the initial position that belongs to no
+     * game, for work such as searching or counting moves that needs a board
+     * but no players.
+     *
+     * @param squaresPerSide the number of squares on a side of the board, even
+     * @return a new board
+     * @throws IllegalArgumentException if the size isn't supported
+     * @see Board#Board(int)
+     */
+    static Board newBoard(int squaresPerSide) {
+        Board board = new Board(squaresPerSide);
+        initBoard(board);
+        return board;
+    }
+
+    /**
+     * Builds a {@link Board} in the same position as {@code position}, for
+     * work that needs squares in a game played on another kind of board.
+     *
+     * @param position the position
+     * @return a new board
+     */
+    static Board newBoard(OthelloBoard position) {
+        int n = position.getSquaresPerSide();
+        Board board = new Board(n);
+
+        Color color;
+        for (int index = 0; index < n * n; ++index) {
+            if ((color = position.getColor(index / n, index % n)) != null) {
+                board.setDisc(index, color);
+            }
+        }
+        return board;
+    }
+
+    public static class Board implements OthelloBoard {
+
+        public static final int DEFAULT_SQUARES_PER_SIDE = 8, MIN_SQUARES_PER_SIDE = 4,
+                                MAX_SQUARES_PER_SIDE = 26;     // one letter per file
 
-        final int SQUARES_PER_SIDE = 8;     // SQUARES_PER_SIDE should be even for symmetry's sake
+        final int SQUARES_PER_SIDE;         // even, so that the starting position is centered
         final Square[][] grid;
+        final Square[] squares;
         private final Set<Board.Square> occupied, frontier, accessible;
+        private final Square[] flipBuffer;
+        private long hash;
+
+        // stability: the empties left on each line, the stable disc count per
+        // color, and a work list of squares whose stability needs rechecking
+        private final int[] lineEmpties;
+        private final int[] stableCount = new int[Color.values().length];
+        private final Square[] stabilityWork;
+
+        // the base-3 index of each pattern instance, see OthelloPatterns;
+        // empty unless the board is 8x8
+        final int[] patterns;
+
+        // evaluation features per color, see getFrontierCount etc. Only the
+        // frontier, corner and X-square counts are maintained as discs
+        // change; mobility and potential mobility are not incremental but
+        // counted when first asked for in a position and forgotten when a
+        // disc changes, since keeping them would cost every flip a walk of
+        // its neighbors, or all along its lines
+        private final int[] frontierCount = new int[Color.values().length],
+                            cornerCount = new int[Color.values().length],
+                            xSquareCount = new int[Color.values().length],
+                            mobility = { -1, -1 },
+                            potentialMobility = { -1, -1 };
 
         Board() {
+            this(DEFAULT_SQUARES_PER_SIDE);
+        }
+
+        /**
+         * Creates an empty board.
+         *
+         * @param squaresPerSide the number of squares on a side, an even
+         *  number from {@value #MIN_SQUARES_PER_SIDE} to {@value #MAX_SQUARES_PER_SIDE}
+         * @throws IllegalArgumentException if the size isn't supported
+         */
+        Board(int squaresPerSide) {
+            Preconditions.checkArgument(squaresPerSide % 2 == 0 &&
+                    squaresPerSide >= MIN_SQUARES_PER_SIDE && squaresPerSide <= MAX_SQUARES_PER_SIDE,
+                    "unsupported board size %s", squaresPerSide);
+            SQUARES_PER_SIDE = squaresPerSide;
+            patterns = new int[hasPatterns() ? OthelloPatterns.INSTANCE_TYPE.length : 0];
+
             grid = new Square[SQUARES_PER_SIDE][SQUARES_PER_SIDE];
 
             for (int rank = 0; rank < SQUARES_PER_SIDE; ++rank) {
@@ -183,28 +402,208 @@ public class Othello {
                 }
             }
 
-            occupied = Sets.newHashSet();
-            frontier = Sets.newHashSet();
-            accessible = Sets.newHashSet();
+            squares = new Square[SQUARES_PER_SIDE * SQUARES_PER_SIDE];
+            for (Square[] row : grid) {
+                for (Square square : row) {
+                    squares[square.index] = square;
+                    for (int i = 0; i < directions.size(); ++i) {
+                        square.neighbors[i] = directions.get(i).apply(square);
+                    }
+                }
+            }
+            for (Square square : squares) {
+                square.clearFeatures();
+            }
+
+            // the rays out of each square, so that scanning a direction is a
+            // walk along an array rather than a chain of neighbor pointers
+            Square[] ray = new Square[SQUARES_PER_SIDE];
+            for (Square square : squares) {
+                for (int i = 0; i < directions.size(); ++i) {
+                    int length = 0;
+                    for (Square current = square.neighbors[i]; current != null; current = current.neighbors[i]) {
+                        ray[length++] = current;
+                    }
+                    square.rays[i] = Arrays.copyOf(ray, length);
+                }
+            }
+
+            // lines are numbered files, then anti-diagonals, then ranks, then
+            // diagonals, matching the first four entries of directions
+            lineEmpties = new int[6 * SQUARES_PER_SIDE - 2];
+            for (Square square : squares) {
+                square.lines[0] = square.file;
+                square.lines[1] = SQUARES_PER_SIDE + square.rank + square.file;
+                square.lines[2] = 3 * SQUARES_PER_SIDE - 1 + square.rank;
+                square.lines[3] = 4 * SQUARES_PER_SIDE - 1 + square.rank - square.file + SQUARES_PER_SIDE - 1;
+                for (int line : square.lines) {
+                    ++lineEmpties[line];
+                }
+            }
+            stabilityWork = new Square[SQUARES_PER_SIDE * SQUARES_PER_SIDE];
+
+            // sized to hold every square so they never grow: iteration order
+            // then depends only on what's in them, and a board that's been
+            // reset lists its moves in the same order as a new one
+            int squareCount = SQUARES_PER_SIDE * SQUARES_PER_SIDE;
+            occupied = Sets.newHashSetWithExpectedSize(squareCount);
+            frontier = Sets.newHashSetWithExpectedSize(squareCount);
+            accessible = Sets.newHashSetWithExpectedSize(squareCount);
+            flipBuffer = new Square[SQUARES_PER_SIDE * SQUARES_PER_SIDE];
         }
 
         private Board(Board original) {
-            this();
-            for (int rank = 0; rank < SQUARES_PER_SIDE; ++rank) {
-                for (int file = 0; file < SQUARES_PER_SIDE; ++file) {
-                    grid[rank][file].color = original.getSquare(rank, file).getColor();
+            this(original.SQUARES_PER_SIDE);
+            copyFrom(original);
+        }
+
+        /**
+         * Replaces the position on this board with {@code original}'s, in
+         * place, so that a board can be reused to search position after
+         * position without building a new one each time.
+         *
+         * @param original a board of the same size
+         * @throws IllegalArgumentException if the sizes differ
+         */
+        void copyFrom(Board original) {
+            Preconditions.checkArgument(original.SQUARES_PER_SIDE == SQUARES_PER_SIDE);
+
+            for (Square square : squares) {
+                Square from = original.squares[square.index];
+                square.color = from.color;
+                square.stable = from.stable;
+                square.queued = false;
+                square.emptyNeighbors = from.emptyNeighbors;
+            }
+            System.arraycopy(original.frontierCount, 0, frontierCount, 0, frontierCount.length);
+            System.arraycopy(original.potentialMobility, 0, potentialMobility, 0, potentialMobility.length);
+            System.arraycopy(original.cornerCount, 0, cornerCount, 0, cornerCount.length);
+            System.arraycopy(original.xSquareCount, 0, xSquareCount, 0, xSquareCount.length);
+            System.arraycopy(original.mobility, 0, mobility, 0, mobility.length);
+
+            hash = original.hash;
+            System.arraycopy(original.patterns, 0, patterns, 0, patterns.length);
+            System.arraycopy(original.lineEmpties, 0, lineEmpties, 0, lineEmpties.length);
+            System.arraycopy(original.stableCount, 0, stableCount, 0, stableCount.length);
+
+            // add this board's own squares, not the original's, so that
+            // walking from a square in these sets stays on this board
+            occupied.clear();
+            frontier.clear();
+            accessible.clear();
+            original.occupied.forEach((square) -> occupied.add(squares[square.index]));
+            original.frontier.forEach((square) -> frontier.add(squares[square.index]));
+            original.accessible.forEach((square) -> accessible.add(squares[square.index]));
+        }
+
+        /**
+         * Empties the board in place, leaving it as a freshly built board
+         * is, without any discs.
+         */
+        @Override
+        public void reset() {
+            for (Square square : squares) {
+                square.color = null;
+                square.stable = square.queued = false;
+                square.clearFeatures();
+            }
+            occupied.clear();
+            frontier.clear();
+            accessible.clear();
+
+            hash = 0L;
+            Arrays.fill(patterns, 0);
+            Arrays.fill(stableCount, 0);
+            Arrays.fill(frontierCount, 0);
+            Arrays.fill(potentialMobility, -1);
+            Arrays.fill(cornerCount, 0);
+            Arrays.fill(xSquareCount, 0);
+            Arrays.fill(mobility, -1);
+            Arrays.fill(lineEmpties, 0);
+            for (Square square : squares) {
+                for (int line : square.lines) {
+                    ++lineEmpties[line];
                 }
             }
+        }
+
+        /**
+         * Puts a {@code color} disc on an empty square without flipping
+         * anything, for setting up a position.
+         *
+         * @param index the square index, {@code rank * SQUARES_PER_SIDE + file}
+         * @param color the color
+         * @throws IllegalArgumentException if the square isn't empty
+         * @see OthelloPositionCodec
+         */
+        @Override
+        public void setDisc(int index, Color color) {
+            Preconditions.checkNotNull(color);
+            Square square = getSquare(index);
+            Preconditions.checkArgument(square.getColor() == null, "%s is occupied", square.getAlgebraicNotation());
 
-            occupied.addAll(original.getOccupied());
-            frontier.addAll(original.getFrontier());
-            accessible.addAll(original.getAccessible());
+            forceSetPiece(square, color);
         }
 
+        /**
+         * Replaces the position on this 8x8 board with the given discs.
+         *
+         * @param black the black discs, bit {@code rank * 8 + file} for each
+         * @param white the white discs
+         * @throws IllegalArgumentException if the board isn't 8x8 or a square
+         *  is in both masks
+         * @see OthelloBitBoard
+         */
+        @Override
+        public void load(long black, long white) {
+            Preconditions.checkArgument(SQUARES_PER_SIDE == OthelloBitBoard.SQUARES_PER_SIDE);
+            Preconditions.checkArgument((black & white) == 0L);
+
+            reset();
+            for (long b = black; b != 0L; b &= b - 1) {
+                forceSetPiece(squares[Long.numberOfTrailingZeros(b)], Color.BLACK);
+            }
+            for (long w = white; w != 0L; w &= w - 1) {
+                forceSetPiece(squares[Long.numberOfTrailingZeros(w)], Color.WHITE);
+            }
+        }
+
+        @Override
         public Board copy() {
             return new Othello.Board(this);
         }
 
+        @Override
+        public int getSquaresPerSide() {
+            return SQUARES_PER_SIDE;
+        }
+
+        @Override
+        public Color getColor(int rank, int file) {
+            return getSquare(rank, file).getColor();
+        }
+
+        @Override
+        public boolean isLegal(int rank, int file, Color color) {
+            return isLegal(getSquare(rank, file), color);
+        }
+
+        @Override
+        public boolean setPiece(int rank, int file, Color color) {
+            return setPiece(getSquare(rank, file), color);
+        }
+
+        @Override
+        public int getDiscCount(Color color) {
+            int count = 0;
+            for (Square square : occupied) {
+                if (square.getColor() == color) {
+                    ++count;
+                }
+            }
+            return count;
+        }
+
         /**
          * Puts a {@code color} disc on {@code square}, if legal, and flips
          * the necessary discs.
@@ -236,26 +635,288 @@ public class Othello {
         }
 
         private boolean setPiece(Square square, Color color, boolean force) {
-            Set<Square> toFlip = getSquaresToFlip(square, color);
-            if (!toFlip.isEmpty() || force) {
+            return setPiece(square, color, force, null);
+        }
+
+        private boolean setPiece(Square square, Color color, boolean force, Move move) {
+            Square[] flipped = move == null ? flipBuffer : move.flipped;
+            int flipCount = force ? 0 : getSquaresToFlip(square, color, flipped);
+            if (flipCount > 0 || force) {
+                boolean wasEmpty = !square.isOccupied();
                 square.setPiece(color);
 
-                if (!force) {
-                    toFlip.forEach(Square::flip);
+                for (int i = 0; i < flipCount; ++i) {
+                    flipped[i].flip();
                 }
+                int stabilized = updateStability(square, wasEmpty, flipped, flipCount, move);
 
                 occupied.add(square);
-                accessible.remove(square);
+                boolean wasAccessible = accessible.remove(square), addedToFrontier = false;
+                int accessibleCount = 0;
                 if (square.isFrontier()) {
-                    frontier.add(square);
-                    accessible.addAll(square.getUnoccupiedNeighbors());
+                    addedToFrontier = frontier.add(square);
+
+                    for (Square neighbor : square.neighbors) {
+                        if (neighbor != null && !neighbor.isOccupied() &&
+                                accessible.add(neighbor) && move != null) {
+                            move.madeAccessible[accessibleCount++] = neighbor;
+                        }
+                    }
                 }
 
+                if (move != null) {
+                    move.square = square;
+                    move.color = color;
+                    move.flipCount = flipCount;
+                    move.wasAccessible = wasAccessible;
+                    move.addedToFrontier = addedToFrontier;
+                    move.madeAccessibleCount = accessibleCount;
+                    move.stabilizedCount = stabilized;
+                }
                 return true;
             }
             return false;
         }
 
+        /**
+         * Plays a {@code color} disc on {@code square}, if legal, recording
+         * what changed so that the move can be taken back with
+         * {@link #undoMove(Move)}.
+         *
+         * @param square the square
+         * @param color the color
+         * @return the record of the move, or {@code null} (leaving the board
+         *  unchanged) if {@code square} isn't a legal move for {@code color}
+         */
+        public Move applyMove(Square square, Color color) {
+            Move move = new Move();
+            return applyMove(square, color, move) ? move : null;
+        }
+
+        /**
+         * Plays a {@code color} disc on {@code square}, if legal, recording
+         * what changed into {@code move}.
+         *
+         * Reusing one {@code Move} per search ply avoids allocating while
+         * exploring a game tree.
+         *
+         * @param square the square
+         * @param color the color
+         * @param move the record to overwrite
+         * @return {@code true} iff {@code square} is a legal move for {@code color}
+         */
+        public boolean applyMove(Square square, Color color, Move move) {
+            Preconditions.checkNotNull(square);
+            Preconditions.checkArgument(square.getColor() == null);
+            Preconditions.checkArgument(move.getBoard() == this);
+
+            return setPiece(square, color, false, move);
+        }
+
+        /**
+         * Takes back the most recent move still on the board, restoring the
+         * discs and the occupied, frontier and accessible squares exactly.
+         *
+         * Moves must be undone in the reverse of the order they were applied.
+         *
+         * @param move the record returned by or filled in by {@code applyMove}
+         */
+        public void undoMove(Move move) {
+            Preconditions.checkArgument(move.getBoard() == this);
+            Preconditions.checkState(move.square != null && move.square.getColor() == move.color);
+
+            // before flipping back, so that each disc is uncounted by its color
+            for (int i = 0; i < move.stabilizedCount; ++i) {
+                move.stabilized[i].stable = false;
+                --stableCount[move.stabilized[i].color.ordinal()];
+            }
+            for (int i = 0; i < move.flipCount; ++i) {
+                move.flipped[i].flip();
+            }
+            move.square.setPiece(null);
+
+            occupied.remove(move.square);
+            if (move.wasAccessible) {
+                accessible.add(move.square);
+            }
+            if (move.addedToFrontier) {
+                frontier.remove(move.square);
+            }
+            for (int i = 0; i < move.madeAccessibleCount; ++i) {
+                accessible.remove(move.madeAccessible[i]);
+            }
+            for (int line : move.square.lines) {
+                ++lineEmpties[line];
+            }
+            move.square = null;
+        }
+
+        /**
+         * Brings the stable discs up to date after a disc is put on
+         * {@code square} and {@code flipped} are flipped.
+         *
+         * A disc is stable once it can never be flipped, which is the case
+         * when along each of the four lines through it the line is full, or
+         * it's on the edge, or it has a stable neighbor of its own color, or
+         * both of its neighbors are stable. Since stable discs stay stable
+         * and full lines stay full, only the squares whose inputs just
+         * changed need rechecking: {@code square}, the flipped discs, every
+         * disc on a line that just filled up, and the neighbors of any disc
+         * found to be stable.
+         *
+         * @return the number of newly stable discs, recorded in {@code move}
+         *  if it isn't {@code null}
+         */
+        private int updateStability(Square square, boolean wasEmpty, Square[] flipped, int flipCount, Move move) {
+            int work = 0, stabilized = 0;
+
+            work = enqueueStability(square, work);
+            for (int i = 0; i < flipCount; ++i) {
+                work = enqueueStability(flipped[i], work);
+            }
+            if (wasEmpty) {
+                for (int axis = 0; axis < square.lines.length; ++axis) {
+                    if (--lineEmpties[square.lines[axis]] == 0) {
+                        for (int direction = axis; direction < directions.size(); direction += square.lines.length) {
+                            for (Square current : square.rays[direction]) {
+                                work = enqueueStability(current, work);
+                            }
+                        }
+                    }
+                }
+            }
+
+            while (work > 0) {
+                Square current = stabilityWork[--work];
+                current.queued = false;
+                if (current.provesStable()) {
+                    current.stable = true;
+                    ++stableCount[current.color.ordinal()];
+                    if (move != null) {
+                        move.stabilized[stabilized] = current;
+                    }
+                    ++stabilized;
+
+                    for (Square neighbor : current.neighbors) {
+                        if (neighbor != null) {
+                            work = enqueueStability(neighbor, work);
+                        }
+                    }
+                }
+            }
+            return stabilized;
+        }
+
+        private int enqueueStability(Square square, int work) {
+            if (!square.queued && !square.stable && square.isOccupied()) {
+                square.queued = true;
+                stabilityWork[work++] = square;
+            }
+            return work;
+        }
+
+        /**
+         * Counts the stable discs of {@code color}, meaning discs that can
+         * never be flipped for the rest of the game.
+         *
+         * The count is maintained as moves are played, so this is cheap
+         * enough to call at every leaf of a search.
+         *
+         * @param color the color
+         * @return the number of stable {@code color} discs
+         * @see Square#isStable()
+         */
+        public int getStableCount(Color color) {
+            return stableCount[color.ordinal()];
+        }
+
+        /**
+         * Counts the legal moves for {@code color}, as {@link #countMoves}
+         * does, but remembers the count until a disc changes, so that asking
+         * again for the same position (as evaluators and move ordering both
+         * do) costs nothing. Unlike the frontier, corner and X-square
+         * counts, this isn't maintained as moves are played; the first call
+         * in each position scans the board.
+         *
+         * @param color the color
+         * @return the number of legal moves
+         */
+        public int getMobility(Color color) {
+            int c = color.ordinal();
+            if (mobility[c] < 0) {
+                mobility[c] = countMoves(color);
+            }
+            return mobility[c];
+        }
+
+        /**
+         * Counts the empty squares next to at least one disc of
+         * {@code color}'s opponent, the squares {@code color} may be able to
+         * move to later. Like {@link #getMobility}, this isn't maintained as
+         * moves are played: the first call in each position counts it, for
+         * both colors at once, by walking the empty squares' neighbors, and
+         * the count is kept until a disc changes.
+         *
+         * @param color the color
+         * @return the potential mobility of {@code color}
+         */
+        public int getPotentialMobility(Color color) {
+            if (potentialMobility[0] < 0) {
+                int black = 0, white = 0;
+                for (Square square : squares) {
+                    if (square.color != null) {
+                        continue;
+                    }
+
+                    boolean nextToBlack = false, nextToWhite = false;
+                    for (Square neighbor : square.neighbors) {
+                        if (neighbor != null && neighbor.color != null) {
+                            nextToBlack |= neighbor.color == Color.BLACK;
+                            nextToWhite |= neighbor.color == Color.WHITE;
+                        }
+                    }
+                    black += nextToWhite ? 1 : 0;
+                    white += nextToBlack ? 1 : 0;
+                }
+                potentialMobility[Color.BLACK.ordinal()] = black;
+                potentialMobility[Color.WHITE.ordinal()] = white;
+            }
+            return potentialMobility[color.ordinal()];
+        }
+
+        /**
+         * Counts the {@code color} discs next to at least one empty square.
+         * Maintained as discs are placed and flipped.
+         *
+         * @param color the color
+         * @return the number of {@code color} frontier discs
+         * @see Square#isFrontier()
+         */
+        public int getFrontierCount(Color color) {
+            return frontierCount[color.ordinal()];
+        }
+
+        /**
+         * Counts the {@code color} discs in the corners.
+         *
+         * @param color the color
+         * @return the number of corners {@code color} holds
+         */
+        public int getCornerCount(Color color) {
+            return cornerCount[color.ordinal()];
+        }
+
+        /**
+         * Counts the {@code color} discs on X-squares, the squares
+         * diagonally next to the corners.
+         *
+         * @param color the color
+         * @return the number of X-squares {@code color} holds
+         */
+        public int getXSquareCount(Color color) {
+            return xSquareCount[color.ordinal()];
+        }
+
         /**
          * Determines if {@code square} is a legal move for {@code color}
          *
@@ -266,9 +927,54 @@ public class Othello {
         protected boolean isLegal(Square square, Color color) {
             Preconditions.checkNotNull(square);
 
-            return !square.isOccupied() && directions.stream().anyMatch((dir) ->
-                !this.getSquaresToFlip(square, color, dir).isEmpty()
-            );
+            if (square.isOccupied()) {
+                return false;
+            }
+            for (int direction = 0; direction < square.rays.length; ++direction) {
+                if (countSquaresToFlip(square, color, direction) > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Writes the indices of all legal moves for {@code color} into
+         * {@code buffer}, in order of index, in one pass over the board's
+         * squares that looks along the lines only of empty squares next to a
+         * disc, and allocates nothing.
+         *
+         * @param color the color
+         * @param buffer a buffer with room for every square on the board
+         * @return the number of legal moves written to the front of {@code buffer}
+         * @see Square#getIndex()
+         */
+        @Override
+        public int getMoves(Color color, int[] buffer) {
+            int count = 0;
+            for (Square square : squares) {
+                if (square.isAccessible() && isLegal(square, color)) {
+                    buffer[count++] = square.index;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Counts the legal moves for {@code color}, in one pass over the
+         * squares as {@link #getMoves(Color, int[])} makes.
+         *
+         * @param color the color
+         * @return the number of legal moves
+         */
+        public int countMoves(Color color) {
+            int count = 0;
+            for (Square square : squares) {
+                if (square.isAccessible() && isLegal(square, color)) {
+                    ++count;
+                }
+            }
+            return count;
         }
 
         /**
@@ -283,11 +989,33 @@ public class Othello {
             Preconditions.checkNotNull(start);
             Preconditions.checkArgument(start.getColor() == null);
 
-            Set<Square> toFlip = Sets.newHashSet();
-            for (Function<Square, Square> direction : directions) {
-                toFlip.addAll(getSquaresToFlip(start, color, direction));
+            Square[] buffer = new Square[SQUARES_PER_SIDE * SQUARES_PER_SIDE];
+            return Sets.newHashSet(Arrays.asList(buffer).subList(0, getSquaresToFlip(start, color, buffer)));
+        }
+
+        /**
+         * Writes the squares whose discs would be flipped if {@code color}
+         * were to play at {@code start} into {@code buffer}, without
+         * allocating.
+         *
+         * @param start the square to play
+         * @param color the color to play
+         * @param buffer a buffer with room for every square on the board
+         * @return the number of squares written to the front of {@code buffer},
+         *  zero iff {@code start} isn't a legal move for {@code color}
+         */
+        protected int getSquaresToFlip(Square start, Color color, Square[] buffer) {
+            Preconditions.checkNotNull(start);
+            Preconditions.checkArgument(start.getColor() == null);
+
+            int count = 0, n;
+            for (int direction = 0; direction < start.rays.length; ++direction) {
+                if ((n = countSquaresToFlip(start, color, direction)) > 0) {
+                    System.arraycopy(start.rays[direction], 0, buffer, count, n);
+                    count += n;
+                }
             }
-            return toFlip;
+            return count;
         }
 
         /**
@@ -301,18 +1029,56 @@ public class Othello {
          */
         // TODO: make me private
         protected Set<Square> getSquaresToFlip(Square start, Color color, Function<Square, Square> direction) {
+            Set<Square> toFlip = Sets.newHashSet();
+
+            Square current = start;
+            for (int n = countSquaresToFlip(start, color, direction); n > 0; --n) {
+                toFlip.add(current = direction.apply(current));
+            }
+            return toFlip;
+        }
+
+        /**
+         * Counts the discs in {@code direction} that would be flipped if
+         * {@code color} were to play at {@code start}.
+         *
+         * @param start the square to play
+         * @param color the color to play
+         * @param direction the direction
+         * @return the number of discs to flip, possibly zero
+         */
+        private int countSquaresToFlip(Square start, Color color, Function<Square, Square> direction) {
+            Color opposite = color.opposite();
             Square current = direction.apply(start);
 
-            Set<Square> toFlip = Sets.newHashSet();
-            while (current != null && current.getColor() == color.opposite()) {
-                toFlip.add(current);
+            int count = 0;
+            while (current != null && current.getColor() == opposite) {
+                ++count;
                 current = direction.apply(current);
             }
 
-            if (current == null || current.getColor() == null) {
-                toFlip.clear();
+            return current == null || current.getColor() == null ? 0 : count;
+        }
+
+        /**
+         * Counts the discs in {@code direction} that would be flipped if
+         * {@code color} were to play at {@code start}.
+         *
+         * @param start the square to play
+         * @param color the color to play
+         * @param direction the direction, an index into {@link Othello#directions}
+         * @return the number of discs to flip, possibly zero
+         */
+        private int countSquaresToFlip(Square start, Color color, int direction) {
+            Color opposite = color.opposite();
+            Square[] ray = start.rays[direction];
+
+            int count = 0;
+            while (count < ray.length && ray[count].color == opposite) {
+                ++count;
             }
-            return toFlip;
+
+            return count == ray.length || ray[count].color == null ? 0 : count;
         }
 
         /**
@@ -321,8 +1087,17 @@ public class Othello {
          * @param color the color
          * @return {@code true} iff {@code color} has at least one legal move
          */
-        protected boolean hasMove(Color color) {
-            return accessible.stream().anyMatch((square) -> isLegal(square, color));
+        @Override
+        public boolean hasMove(Color color) {
+            if (mobility[color.ordinal()] >= 0) {
+                return mobility[color.ordinal()] > 0;
+            }
+            for (Square square : squares) {
+                if (square.isAccessible() && isLegal(square, color)) {
+                    return true;
+                }
+            }
+            return false;
         }
 
         /**
@@ -332,14 +1107,10 @@ public class Othello {
          * @return the square
          */
         protected Square getSquare(String square) {
-            Pattern pattern = Pattern.compile("^([a-z])([1-9]\\d*)$");
-            Matcher matcher = pattern.matcher(square.toLowerCase());
-            Preconditions.checkArgument(matcher.matches());
-
-            int file = matcher.group(1).charAt(0) - 'a',
-                    rank = Integer.valueOf(matcher.group(2)) - 1;
+            int index = OthelloNotation.parseSquare(square, SQUARES_PER_SIDE);
+            Preconditions.checkArgument(index != OthelloNotation.NOT_A_SQUARE, "not a square: %s", square);
 
-            return getSquare(rank, file);
+            return squares[index];
         }
 
         /**
@@ -356,6 +1127,30 @@ public class Othello {
             return grid[rank][file];
         }
 
+        /**
+         * Gets the square with the given index.
+         *
+         * @param index the index {@code 0 <= index < SQUARES_PER_SIDE * SQUARES_PER_SIDE}
+         * @return the square
+         * @see Square#getIndex()
+         */
+        protected Square getSquare(final int index) {
+            Preconditions.checkElementIndex(index, squares.length);
+
+            return squares[index];
+        }
+
+        /**
+         * Gets the Zobrist hash of the discs on the board, maintained as discs
+         * are placed and flipped.
+         *
+         * @return the hash
+         * @see OthelloZobrist
+         */
+        public long getHash() {
+            return hash;
+        }
+
         public Set<Square> getOccupied() {
             return Collections.unmodifiableSet(occupied);
         }
@@ -368,6 +1163,16 @@ public class Othello {
             return Collections.unmodifiableSet(accessible);
         }
 
+        /**
+         * Determines if this board keeps {@link OthelloPatterns pattern}
+         * indices, which are only defined on the standard 8x8 board.
+         *
+         * @return {@code true} iff {@link #patterns} is maintained
+         */
+        boolean hasPatterns() {
+            return SQUARES_PER_SIDE == OthelloPatterns.SQUARES_PER_SIDE;
+        }
+
         public Set<Square> getCorners() {
             return ImmutableSet.of(
                     getSquare(0, 0),
@@ -377,12 +1182,58 @@ public class Othello {
             );
         }
 
+        /**
+         * A record of a move played with {@link #applyMove}, holding what's
+         * needed to take it back with {@link #undoMove}.
+         */
+        public class Move {
+
+            private Square square;
+            private Color color;
+
+            private final Square[] flipped = new Square[SQUARES_PER_SIDE * SQUARES_PER_SIDE];
+            private int flipCount;
+
+            private boolean wasAccessible, addedToFrontier;
+            private final Square[] madeAccessible = new Square[directions.size()];
+            private int madeAccessibleCount;
+
+            private final Square[] stabilized = new Square[SQUARES_PER_SIDE * SQUARES_PER_SIDE];
+            private int stabilizedCount;
+
+            public Square getSquare() {
+                return square;
+            }
+
+            public Color getColor() {
+                return color;
+            }
+
+            public int getFlipCount() {
+                return flipCount;
+            }
+
+            private Board getBoard() {
+                return Board.this;
+            }
+        }
+
         public class Square {
 
-            private final int rank, file;
+            private final int rank, file, index;
             private Color color;
 
             private Square _n, _ne, _e, _se, _s, _sw, _w, _nw;
+            private final Square[] neighbors = new Square[directions.size()];     // in the order of directions
+            private final Square[][] rays = new Square[directions.size()][];      // every square out to the edge, likewise
+            private final int[] lines = new int[directions.size() / 2];          // the lines through this square
+            private boolean stable, queued;
+            private final int[] patternInstances, patternPowers;      // see OthelloPatterns
+
+            // for the frontier count and the move scan: how many neighbors
+            // are empty, and how many there are at all
+            private int emptyNeighbors, neighborCount;
+            private final boolean corner, xSquare;
 
             private Predicate<Square> isOccupiedP = Square::isOccupied,
                                       isFrontierP = Square::isFrontier;
@@ -390,11 +1241,45 @@ public class Othello {
             Square(final int rank, final int file) {
                 this.rank = rank;
                 this.file = file;
+                this.index = rank * SQUARES_PER_SIDE + file;
                 this.color = null;
+
+                int last = SQUARES_PER_SIDE - 1;
+                corner = (rank == 0 || rank == last) && (file == 0 || file == last);
+                xSquare = (rank == 1 || rank == last - 1) && (file == 1 || file == last - 1);
+
+                if (hasPatterns()) {
+                    patternInstances = OthelloPatterns.SQUARE_INSTANCES[index];
+                    patternPowers = OthelloPatterns.SQUARE_POWERS[index];
+                }
+                else {
+                    patternInstances = patternPowers = new int[0];
+                }
             }
 
             private Color flip() throws IllegalStateException {
                 Preconditions.checkNotNull(this.color);
+                hash ^= OthelloZobrist.key(index, color) ^ OthelloZobrist.key(index, color.opposite());
+
+                // black (1) to white (2) adds one in this square's place, and back subtracts it
+                int sign = color == Color.BLACK ? 1 : -1;
+                for (int i = 0; i < patternInstances.length; ++i) {
+                    patterns[patternInstances[i]] += sign * patternPowers[i];
+                }
+
+                int from = color.ordinal(), to = 1 - from;
+                if (emptyNeighbors > 0) {
+                    --frontierCount[from];
+                    ++frontierCount[to];
+                }
+                if (corner) {
+                    --cornerCount[from];
+                    ++cornerCount[to];
+                }
+                if (xSquare) {
+                    --xSquareCount[from];
+                    ++xSquareCount[to];
+                }
                 return this.color = color.opposite();
             }
 
@@ -405,9 +1290,82 @@ public class Othello {
              * @param color the color
              */
             private void setPiece(Color color) {
+                if (this.color != null) {
+                    hash ^= OthelloZobrist.key(index, this.color);
+                }
+                if (color != null) {
+                    hash ^= OthelloZobrist.key(index, color);
+                }
+
+                int delta = OthelloPatterns.digit(color) - OthelloPatterns.digit(this.color);
+                if (delta != 0) {
+                    for (int i = 0; i < patternInstances.length; ++i) {
+                        patterns[patternInstances[i]] += delta * patternPowers[i];
+                    }
+                }
+
+                if (this.color != null) {
+                    updateFeatures(this.color, -1);
+                }
+                if (color != null) {
+                    updateFeatures(color, 1);
+                }
+                mobility[0] = mobility[1] = potentialMobility[0] = potentialMobility[1] = -1;
                 this.color = color;
             }
 
+            /**
+             * Updates the evaluation features for a {@code color} disc being
+             * put on ({@code sign} 1) or taken off ({@code sign} -1) this
+             * square.
+             */
+            private void updateFeatures(Color color, int sign) {
+                int c = color.ordinal();
+                if (emptyNeighbors > 0) {
+                    frontierCount[c] += sign;
+                }
+                if (corner) {
+                    cornerCount[c] += sign;
+                }
+                if (xSquare) {
+                    xSquareCount[c] += sign;
+                }
+
+                for (Square neighbor : neighbors) {
+                    if (neighbor == null) {
+                        continue;
+                    }
+                    neighbor.emptyNeighbors -= sign;
+                    // a disc next to this square gains or loses its last empty neighbor
+                    if (neighbor.color != null && neighbor.emptyNeighbors == (sign > 0 ? 0 : 1)) {
+                        frontierCount[neighbor.color.ordinal()] += -sign;
+                    }
+                }
+            }
+
+            /**
+             * Sets this square's features as on an empty board.
+             */
+            private void clearFeatures() {
+                emptyNeighbors = 0;
+                for (Square neighbor : neighbors) {
+                    if (neighbor != null) {
+                        ++emptyNeighbors;
+                    }
+                }
+                neighborCount = emptyNeighbors;
+            }
+
+            /**
+             * Determines if this square is empty and next to a disc, and so
+             * could be a legal move, without looking along its lines.
+             *
+             * @return {@code true} iff this square is accessible
+             */
+            private boolean isAccessible() {
+                return color == null && emptyNeighbors < neighborCount;
+            }
+
             /**
              * Gets the {@link Square}s adjacent to {@code this} that are unoccupied.
              *
@@ -462,17 +1420,41 @@ public class Othello {
              * @return {@code true} iff this square is a frontier square
              */
             public boolean isFrontier() {
-                if (!isOccupied()) {
+                return isOccupied() && emptyNeighbors > 0;
+            }
+
+            /**
+             * Gets whether the disc on this square is stable, meaning that
+             * it can never be flipped for the rest of the game.
+             *
+             * @return {@code true} iff this square has a disc and it's stable
+             */
+            public boolean isStable() {
+                return stable;
+            }
+
+            /**
+             * Determines if the disc on this square, not yet known to be
+             * stable, is stable given the stable discs found so far.
+             *
+             * @return {@code true} iff this disc can now be marked stable
+             * @see Board#updateStability
+             */
+            private boolean provesStable() {
+                if (stable || !isOccupied()) {
                     return false;
                 }
 
-                Square neighbor;
-                for (Function<Square, Square> direction : directions) {
-                    if ((neighbor = direction.apply(this)) != null && !neighbor.isOccupied()) {
-                        return true;
+                int axes = lines.length;
+                for (int axis = 0; axis < axes; ++axis) {
+                    Square a = neighbors[axis], b = neighbors[axis + axes];
+                    if (!(a == null || b == null || lineEmpties[lines[axis]] == 0 ||
+                            (a.stable && (a.color == color || b.stable)) ||
+                            (b.stable && b.color == color))) {
+                        return false;
                     }
                 }
-                return false;
+                return true;
             }
 
             /* ****************************************************************
@@ -486,6 +1468,15 @@ public class Othello {
                 return file;
             }
 
+            /**
+             * Gets this square's index, {@code rank * SQUARES_PER_SIDE + file}.
+             *
+             * @return the index
+             */
+            public int getIndex() {
+                return index;
+            }
+
             public Color getColor() {
                 return color;
             }
@@ -523,7 +1514,7 @@ public class Othello {
             }
 
             public String getAlgebraicNotation() {
-                return String.valueOf((char) ('a' + file)) + (rank + 1);
+                return OthelloNotation.toString(index, SQUARES_PER_SIDE);
             }
 
             @Override
@@ -572,9 +1563,19 @@ public class Othello {
         }
     }
 
+    /**
+     * Plays a game on the console: {@code Othello [black [white]]}, where
+     * the players are names from {@link OthelloPlayerRegistry#defaults()}.
+     * The default is you, at the keyboard, against random moves.
+     */
     public static void main(String... args) {
-        Othello o = new Othello(OthelloPlayerWithKeyboard.class, OthelloPlayerRandomMove.class);
+        OthelloPlayerRegistry registry = OthelloPlayerRegistry.defaults();
+        Othello o = new Othello(
+                registry.get(args.length > 0 ? args[0] : OthelloPlayerRegistry.KEYBOARD),
+                registry.get(args.length > 1 ? args[1] : OthelloPlayerRegistry.RANDOM),
+                new Random());
         o.play();
-        System.out.println(o.board);
+        o.close();
+        System.out.println(o.position);
     }
 }
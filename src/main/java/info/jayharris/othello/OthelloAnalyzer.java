@@ -0,0 +1,294 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Analyzes batches of independent 8x8 positions: for each, the legal moves,
+ * the static evaluation, and the best move and score from a fixed-depth
+ * alpha-beta search, the same search {@link OthelloPlayerMinimaxDecision}
+ * makes, so that the best move is the one the player would choose given
+ * the same evaluator and transposition table.
+ *
+ * Positions come in the packed form of {@link OthelloPositionCodec} and are
+ * split among the threads of a {@link ForkJoinPool}, which steal work from
+ * each other as their shares run out. Each thread loads positions into a
+ * scratch board and search buffers of its own, built the first time it
+ * works for this analyzer and reused for every position after, so a
+ * position costs only its search.
+ *
+ * The evaluator, and the transposition table if there is one, are shared
+ * by all the threads and so must be thread-safe, as the evaluators and
+ * {@link OthelloTranspositionTable} in this package are.
+ */
+public class OthelloAnalyzer {
+
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The fewest positions a task splits off to another thread.
+     */
+    static final int THRESHOLD = 16;
+
+    private final OthelloEvaluator evaluator;
+    private final int depth;
+    private final OthelloTranspositionTable transpositionTable;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * Creates an analyzer that runs on the common pool.
+     *
+     * @param evaluator the evaluation, from the side to move's point of view
+     * @param depth the search depth, in plies; at 0, the best move is the
+     *  first legal move in search order and the score is the evaluation
+     */
+    public OthelloAnalyzer(OthelloEvaluator evaluator, int depth) {
+        this(evaluator, depth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param evaluator the evaluation, from the side to move's point of view
+     * @param depth the search depth, in plies
+     * @param pool the pool to run on
+     */
+    public OthelloAnalyzer(OthelloEvaluator evaluator, int depth, ForkJoinPool pool) {
+        this(evaluator, depth, null, pool);
+    }
+
+    /**
+     * @param evaluator the evaluation, from the side to move's point of view
+     * @param depth the search depth, in plies
+     * @param transpositionTable the table to share among the threads, or
+     *  {@code null} to search without one
+     * @param pool the pool to run on
+     */
+    public OthelloAnalyzer(OthelloEvaluator evaluator, int depth, OthelloTranspositionTable transpositionTable,
+                           ForkJoinPool pool) {
+        Preconditions.checkArgument(depth >= 0);
+        this.evaluator = Preconditions.checkNotNull(evaluator);
+        this.depth = depth;
+        this.transpositionTable = transpositionTable;
+        this.pool = Preconditions.checkNotNull(pool);
+
+        // the workers outlive the analyzer in the pool's threads until their
+        // entries are cleared, so they mustn't hold on to it
+        workers = ThreadLocal.withInitial(() -> new Worker(evaluator, depth));
+    }
+
+    /**
+     * Analyzes packed positions, starting at the buffer's position and
+     * advancing it past the last one.
+     *
+     * @param packed the positions, {@value OthelloPositionCodec#PACKED_SIZE}
+     *  bytes each
+     * @param toMove the side to move in each position, which also says how
+     *  many positions there are
+     * @return the analysis of each position, in order
+     * @throws IllegalArgumentException if the buffer holds too few positions
+     *  or one isn't a position
+     */
+    public Results analyze(ByteBuffer packed, Color[] toMove) {
+        int start = packed.position(), count = toMove.length;
+        Preconditions.checkArgument(packed.remaining() >= count * OthelloPositionCodec.PACKED_SIZE,
+                "%s positions need %s bytes", count, count * OthelloPositionCodec.PACKED_SIZE);
+
+        Results results = new Results(count);
+        if (transpositionTable != null) {
+            transpositionTable.newSearch();
+        }
+        pool.invoke(new Task(packed, start, toMove, results, 0, count));
+        packed.position(start + count * OthelloPositionCodec.PACKED_SIZE);
+        return results;
+    }
+
+    /**
+     * Analyzes one position on the calling thread.
+     *
+     * @param board an 8x8 board
+     * @param toMove the side to move
+     * @return the analysis
+     */
+    public Results analyze(OthelloBoard board, Color toMove) {
+        OthelloBitBoard bitboard = board instanceof OthelloBitBoard ? (OthelloBitBoard) board : OthelloBitBoard.from(board);
+        Results results = new Results(1);
+        if (transpositionTable != null) {
+            transpositionTable.newSearch();
+        }
+        workers.get().analyze(bitboard.getBlack(), bitboard.getWhite(), toMove, transpositionTable, results, 0);
+        return results;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * The analysis of a batch of positions, indexed in the order the
+     * positions were given. Scores and evaluations are from the side to
+     * move's point of view.
+     */
+    public static class Results {
+
+        private final long[] moves;
+        private final int[] bestMoves, scores, evaluations;
+
+        Results(int size) {
+            moves = new long[size];
+            bestMoves = new int[size];
+            scores = new int[size];
+            evaluations = new int[size];
+        }
+
+        public int size() {
+            return moves.length;
+        }
+
+        /**
+         * Gets the legal moves in a position.
+         *
+         * @param position the position's index in the batch
+         * @return the moves, bit {@code rank * 8 + file} for each
+         */
+        public long getMoves(int position) {
+            return moves[position];
+        }
+
+        public int getMoveCount(int position) {
+            return Long.bitCount(moves[position]);
+        }
+
+        /**
+         * Gets the best move found in a position.
+         *
+         * @param position the position's index in the batch
+         * @return the square index of the move, or {@link #NO_MOVE} if the
+         *  side to move has to pass
+         */
+        public int getBestMove(int position) {
+            return bestMoves[position];
+        }
+
+        /**
+         * Gets the score of the best move, from the search.
+         *
+         * @param position the position's index in the batch
+         * @return the score
+         */
+        public int getScore(int position) {
+            return scores[position];
+        }
+
+        /**
+         * Gets the static evaluation of a position.
+         *
+         * @param position the position's index in the batch
+         * @return the evaluation
+         */
+        public int getEvaluation(int position) {
+            return evaluations[position];
+        }
+    }
+
+    /**
+     * Analyzes the positions from {@code lo} to {@code hi}, splitting them
+     * in half until there are few enough to do here.
+     */
+    private class Task extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer packed;
+        private final int start, lo, hi;
+        private final Color[] toMove;
+        private final Results results;
+
+        Task(ByteBuffer packed, int start, Color[] toMove, Results results, int lo, int hi) {
+            this.packed = packed;
+            this.start = start;
+            this.toMove = toMove;
+            this.results = results;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Task(packed, start, toMove, results, lo, mid),
+                          new Task(packed, start, toMove, results, mid, hi));
+                return;
+            }
+
+            Worker worker = workers.get();
+            for (int i = lo; i < hi; ++i) {
+                // absolute reads, so the threads don't share the buffer's position
+                int offset = start + i * OthelloPositionCodec.PACKED_SIZE;
+                worker.analyze(packed.getLong(offset), packed.getLong(offset + 8), toMove[i], transpositionTable,
+                        results, i);
+            }
+        }
+    }
+
+    /**
+     * One thread's search, with its scratch board, and a buffer for the
+     * legal moves at the root.
+     */
+    private static class Worker {
+
+        final OthelloPlayerMinimaxDecision.Search search;
+        final int depth;
+        final int[] legal;
+
+        // never set; the analyzer searches every position to the end
+        final AtomicBoolean stop = new AtomicBoolean();
+
+        Worker(OthelloEvaluator evaluator, int depth) {
+            this.search = new OthelloPlayerMinimaxDecision.Search(
+                    Othello.newBoard(Board.DEFAULT_SQUARES_PER_SIDE), evaluator);
+            this.depth = depth;
+            legal = new int[search.board.SQUARES_PER_SIDE * search.board.SQUARES_PER_SIDE];
+        }
+
+        void analyze(long black, long white, Color toMove, OthelloTranspositionTable transpositionTable,
+                     Results results, int position) {
+            Preconditions.checkNotNull(toMove);
+            Board board = search.board;
+            board.load(black, white);
+
+            long mask = 0L;
+            int count = board.getMoves(toMove, legal);
+            for (int i = 0; i < count; ++i) {
+                mask |= 1L << legal[i];
+            }
+            results.moves[position] = mask;
+            results.evaluations[position] = search.evaluator.evaluate(board, toMove);
+
+            search.start(transpositionTable, 0L, stop);
+            if (count == 0) {
+                results.bestMoves[position] = NO_MOVE;
+                if (depth == 0) {
+                    results.scores[position] = results.evaluations[position];
+                }
+                else {
+                    // a pass, searched as the player searches one below the root
+                    search.reserve(depth);
+                    results.scores[position] = search.negamax(toMove, depth,
+                            -OthelloPlayerMinimaxDecision.INFINITY, OthelloPlayerMinimaxDecision.INFINITY, 0, false);
+                }
+                return;
+            }
+
+            // at depth 0 no iteration runs, and the best move is the first in search order
+            results.bestMoves[position] = search.iterate(toMove, 1, depth).getIndex();
+            results.scores[position] = depth == 0 ? results.evaluations[position] : search.score;
+        }
+    }
+}
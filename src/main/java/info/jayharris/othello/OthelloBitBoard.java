@@ -0,0 +1,347 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import info.jayharris.othello.Othello.Color;
+
+/**
+ * An 8x8 Othello board packed into two 64-bit masks, one per color.
+ *
+ * Bit {@code rank * 8 + file} of a mask is set iff that color has a disc on
+ * {@code (rank, file)}. Move generation and flipping are done with shifts and
+ * masks over all squares at once rather than by walking individual squares.
+ */
+public class OthelloBitBoard implements OthelloBoard {
+
+    public static final int SQUARES_PER_SIDE = 8;
+
+    static final long NOT_FILE_A = 0xfefefefefefefefeL,
+                      NOT_FILE_H = 0x7f7f7f7f7f7f7f7fL;
+
+    /*
+     * Bit offsets and wraparound masks for each direction, in the same order
+     * as Othello.directions: n, ne, e, se, s, sw, w, nw.
+     */
+    private static final int[] SHIFTS = { -8, -7, 1, 9, 8, 7, -1, -9 };
+    private static final long[] MASKS = {
+            -1L, NOT_FILE_A, NOT_FILE_A, NOT_FILE_A, -1L, NOT_FILE_H, NOT_FILE_H, NOT_FILE_H
+    };
+
+    private long black, white;
+
+    public OthelloBitBoard() {
+        this(0L, 0L);
+    }
+
+    public OthelloBitBoard(long black, long white) {
+        Preconditions.checkArgument((black & white) == 0L);
+
+        this.black = black;
+        this.white = white;
+    }
+
+    /**
+     * Gets a bitboard set up in the standard starting position.
+     *
+     * @return the bitboard
+     */
+    public static OthelloBitBoard initial() {
+        return new OthelloBitBoard(bit(3, 4) | bit(4, 3), bit(3, 3) | bit(4, 4));
+    }
+
+    /**
+     * Gets a bitboard with the same discs as {@code board}.
+     *
+     * @param board an 8x8 board
+     * @return the bitboard
+     */
+    public static OthelloBitBoard from(OthelloBoard board) {
+        Preconditions.checkArgument(board.getSquaresPerSide() == SQUARES_PER_SIDE);
+
+        long black = 0L, white = 0L;
+        Color color;
+        for (int rank = 0; rank < SQUARES_PER_SIDE; ++rank) {
+            for (int file = 0; file < SQUARES_PER_SIDE; ++file) {
+                if ((color = board.getColor(rank, file)) == Color.BLACK) {
+                    black |= bit(rank, file);
+                }
+                else if (color == Color.WHITE) {
+                    white |= bit(rank, file);
+                }
+            }
+        }
+        return new OthelloBitBoard(black, white);
+    }
+
+    /**
+     * Gets the mask with only the bit for {@code (rank, file)} set.
+     *
+     * @param rank the rank
+     * @param file the file
+     * @return the mask
+     */
+    public static long bit(int rank, int file) {
+        return 1L << index(rank, file);
+    }
+
+    /**
+     * Gets the bit index of {@code (rank, file)}.
+     *
+     * @param rank the rank
+     * @param file the file
+     * @return the index {@code 0 <= index < 64}
+     */
+    public static int index(int rank, int file) {
+        Preconditions.checkArgument(rank >= 0 && rank < SQUARES_PER_SIDE);
+        Preconditions.checkArgument(file >= 0 && file < SQUARES_PER_SIDE);
+
+        return rank * SQUARES_PER_SIDE + file;
+    }
+
+    /**
+     * Shifts every bit of {@code mask} one square in the given direction,
+     * dropping bits that would fall off the board.
+     *
+     * @param mask the mask
+     * @param direction the direction, an index into {@link Othello#directions}
+     * @return the shifted mask
+     */
+    static long shift(long mask, int direction) {
+        int s = SHIFTS[direction];
+        return (s > 0 ? mask << s : mask >>> -s) & MASKS[direction];
+    }
+
+    /**
+     * Gets the legal moves for the player owning {@code own} against the
+     * player owning {@code opp}.
+     *
+     * @param own the mover's discs
+     * @param opp the opponent's discs
+     * @return a mask of the legal moves
+     */
+    static long moves(long own, long opp) {
+        long empty = ~(own | opp), moves = 0L, x;
+        for (int dir = 0; dir < 8; ++dir) {
+            x = shift(own, dir) & opp;
+            x |= shift(x, dir) & opp;
+            x |= shift(x, dir) & opp;
+            x |= shift(x, dir) & opp;
+            x |= shift(x, dir) & opp;
+            x |= shift(x, dir) & opp;
+            moves |= shift(x, dir) & empty;
+        }
+        return moves;
+    }
+
+    /**
+     * Gets the discs that would be flipped if the player owning {@code own}
+     * played on square {@code index}.
+     *
+     * @param index the square to play
+     * @param own the mover's discs
+     * @param opp the opponent's discs
+     * @return a mask of the discs to flip, empty if the move is illegal
+     */
+    static long flips(int index, long own, long opp) {
+        long flips = 0L, move = 1L << index, line, x;
+        for (int dir = 0; dir < 8; ++dir) {
+            line = 0L;
+            x = shift(move, dir);
+            while ((x & opp) != 0L) {
+                line |= x;
+                x = shift(x, dir);
+            }
+            if ((x & own) != 0L) {
+                flips |= line;
+            }
+        }
+        return flips;
+    }
+
+    /**
+     * Gets a mask of the legal moves for {@code color}.
+     *
+     * @param color the color
+     * @return the mask
+     */
+    public long getMoves(Color color) {
+        return color == Color.BLACK ? moves(black, white) : moves(white, black);
+    }
+
+    /**
+     * Gets a mask of the discs that would be flipped if {@code color} played
+     * on square {@code index}.
+     *
+     * @param index the square index
+     * @param color the color
+     * @return the mask, empty if the move is illegal
+     */
+    public long getFlips(int index, Color color) {
+        Preconditions.checkArgument(((black | white) & (1L << index)) == 0L);
+
+        return color == Color.BLACK ? flips(index, black, white) : flips(index, white, black);
+    }
+
+    /**
+     * Plays {@code color} on square {@code index}, if legal.
+     *
+     * @param index the square index
+     * @param color the color
+     * @return the mask of flipped discs, or {@code 0} (leaving the board
+     *  unchanged) if the move is illegal
+     */
+    public long play(int index, Color color) {
+        long flips = getFlips(index, color);
+        if (flips != 0L) {
+            if (color == Color.BLACK) {
+                black |= flips | (1L << index);
+                white &= ~flips;
+            }
+            else {
+                white |= flips | (1L << index);
+                black &= ~flips;
+            }
+        }
+        return flips;
+    }
+
+    /**
+     * Takes back a move made by {@link #play(int, Color)}.
+     *
+     * @param index the square that was played
+     * @param color the color that played it
+     * @param flips the mask returned by {@code play}
+     */
+    public void undo(int index, Color color, long flips) {
+        if (color == Color.BLACK) {
+            black &= ~(flips | (1L << index));
+            white |= flips;
+        }
+        else {
+            white &= ~(flips | (1L << index));
+            black |= flips;
+        }
+    }
+
+    public long getBlack() {
+        return black;
+    }
+
+    public long getWhite() {
+        return white;
+    }
+
+    public long getDiscs(Color color) {
+        return color == Color.BLACK ? black : white;
+    }
+
+    public long getEmpty() {
+        return ~(black | white);
+    }
+
+    @Override
+    public int getSquaresPerSide() {
+        return SQUARES_PER_SIDE;
+    }
+
+    @Override
+    public Color getColor(int rank, int file) {
+        long bit = bit(rank, file);
+        return (black & bit) != 0L ? Color.BLACK : ((white & bit) != 0L ? Color.WHITE : null);
+    }
+
+    @Override
+    public boolean isLegal(int rank, int file, Color color) {
+        return (getMoves(color) & bit(rank, file)) != 0L;
+    }
+
+    @Override
+    public boolean setPiece(int rank, int file, Color color) {
+        return play(index(rank, file), color) != 0L;
+    }
+
+    @Override
+    public int getMoves(Color color, int[] buffer) {
+        int count = 0;
+        for (long moves = getMoves(color); moves != 0L; moves &= moves - 1) {
+            buffer[count++] = Long.numberOfTrailingZeros(moves);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean hasMove(Color color) {
+        return getMoves(color) != 0L;
+    }
+
+    @Override
+    public int getDiscCount(Color color) {
+        return Long.bitCount(getDiscs(color));
+    }
+
+    @Override
+    public void setDisc(int index, Color color) {
+        Preconditions.checkNotNull(color);
+        Preconditions.checkElementIndex(index, SQUARES_PER_SIDE * SQUARES_PER_SIDE);
+        Preconditions.checkArgument(((black | white) & (1L << index)) == 0L, "%s is occupied", index);
+
+        if (color == Color.BLACK) {
+            black |= 1L << index;
+        }
+        else {
+            white |= 1L << index;
+        }
+    }
+
+    @Override
+    public void reset() {
+        black = white = 0L;
+    }
+
+    @Override
+    public void load(long black, long white) {
+        Preconditions.checkArgument((black & white) == 0L);
+
+        this.black = black;
+        this.white = white;
+    }
+
+    @Override
+    public OthelloBitBoard copy() {
+        return new OthelloBitBoard(black, white);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OthelloBitBoard that = (OthelloBitBoard) o;
+        return black == that.black &&
+                white == that.white;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(black * 31 + white);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 0; rank < SQUARES_PER_SIDE; ++rank) {
+            for (int file = 0; file < SQUARES_PER_SIDE; ++file) {
+                long bit = bit(rank, file);
+                if ((black & bit) != 0L) {
+                    sb.append('B');
+                }
+                else if ((white & bit) != 0L) {
+                    sb.append('w');
+                }
+                else {
+                    sb.append('•');
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
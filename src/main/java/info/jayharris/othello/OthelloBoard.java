@@ -0,0 +1,112 @@
+package info.jayharris.othello;
+
+/**
+ * A board on which a game of Othello can be played.
+ *
+ * Squares are addressed by {@code (rank, file)}, where {@code (0, 0)} is the
+ * upper-left square ("a1"), as in {@link Othello.Board#getSquare(int, int)},
+ * or by index, {@code rank * getSquaresPerSide() + file}.
+ */
+public interface OthelloBoard {
+
+    /**
+     * The square index standing for no move at all, such as a pass.
+     */
+    int NO_MOVE = -1;
+
+    /**
+     * Gets the number of squares along each side of the board.
+     *
+     * @return the number of squares per side
+     */
+    int getSquaresPerSide();
+
+    /**
+     * Gets the color of the disc at {@code (rank, file)}.
+     *
+     * @param rank the rank {@code 0 <= rank < getSquaresPerSide()}
+     * @param file the file {@code 0 <= file < getSquaresPerSide()}
+     * @return the color of the disc, or {@code null} if the square is empty
+     */
+    Othello.Color getColor(int rank, int file);
+
+    /**
+     * Determines if {@code (rank, file)} is a legal move for {@code color}.
+     *
+     * @param rank the rank
+     * @param file the file
+     * @param color the color
+     * @return {@code true} iff {@code (rank, file)} is a legal move for {@code color}
+     */
+    boolean isLegal(int rank, int file, Othello.Color color);
+
+    /**
+     * Puts a {@code color} disc on {@code (rank, file)}, if legal, and flips
+     * the necessary discs.
+     *
+     * @param rank the rank
+     * @param file the file
+     * @param color the color
+     * @return {@code true} iff {@code (rank, file)} is a legal move for {@code color}
+     * @throws java.lang.IllegalArgumentException if the square is occupied
+     */
+    boolean setPiece(int rank, int file, Othello.Color color);
+
+    /**
+     * Writes the indices of all legal moves for {@code color} into
+     * {@code buffer}.
+     *
+     * @param color the color
+     * @param buffer a buffer with room for every square on the board
+     * @return the number of legal moves written to the front of {@code buffer}
+     */
+    int getMoves(Othello.Color color, int[] buffer);
+
+    /**
+     * Determines if {@code color} has any legal moves.
+     *
+     * @param color the color
+     * @return {@code true} iff {@code color} has at least one legal move
+     */
+    boolean hasMove(Othello.Color color);
+
+    /**
+     * Counts the discs of the given color.
+     *
+     * @param color the color
+     * @return the number of {@code color} discs on the board
+     */
+    int getDiscCount(Othello.Color color);
+
+    /**
+     * Puts a {@code color} disc on an empty square without flipping
+     * anything, for setting up a position.
+     *
+     * @param index the square index
+     * @param color the color
+     * @throws java.lang.IllegalArgumentException if the square isn't empty
+     */
+    void setDisc(int index, Othello.Color color);
+
+    /**
+     * Takes every disc off the board.
+     */
+    void reset();
+
+    /**
+     * Replaces the position on this 8x8 board with the given discs.
+     *
+     * @param black the black discs, bit {@code rank * 8 + file} for each
+     * @param white the white discs
+     * @throws java.lang.IllegalArgumentException if the board isn't 8x8 or a
+     *  square is in both masks
+     */
+    void load(long black, long white);
+
+    /**
+     * Gets an independent copy of this board.
+     *
+     * @return the copy
+     */
+    OthelloBoard copy();
+}
@@ -0,0 +1,265 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import info.jayharris.othello.Othello.Color;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Searches an 8x8 position to the end of the game to find its exact final
+ * disc differential and a move that achieves it.
+ *
+ * The solver works on bitboards and keeps its own doubly-linked list of
+ * empty squares, removing and reinserting squares in place as it plays and
+ * takes back moves. Near the root it tries the moves that leave the
+ * opponent the fewest replies first ("fastest first"); closer to the end it
+ * plays into regions with an odd number of empties first, since the player
+ * who gets the last move in a region usually gains from it.
+ *
+ * A solver is not thread-safe; use one per thread.
+ */
+public class OthelloEndgameSolver {
+
+    /** Positions with more empties than this order moves fastest-first. */
+    static final int FASTEST_FIRST_EMPTIES = 7;
+
+    static final int NO_MOVE = -1;
+
+    private static final int SQUARES = 64, HEAD = SQUARES, CHECK_CLOCK_EVERY = 1 << 12;
+
+    private static final int[] SQUARE_ORDER = new int[SQUARES], QUADRANT = new int[SQUARES];
+
+    static {
+        int n = 0;
+        for (int weight : new int[] {
+                OthelloPositionalEvaluator.CORNER, OthelloPositionalEvaluator.EDGE,
+                OthelloPositionalEvaluator.INTERIOR, OthelloPositionalEvaluator.C_SQUARE,
+                OthelloPositionalEvaluator.X_SQUARE }) {
+            for (int i = 0; i < SQUARES; ++i) {
+                if (OthelloPositionalEvaluator.getWeight(8, i / 8, i % 8) == weight) {
+                    SQUARE_ORDER[n++] = i;
+                }
+            }
+        }
+        for (int i = 0; i < SQUARES; ++i) {
+            QUADRANT[i] = 1 << ((i / 8 >= 4 ? 2 : 0) + (i % 8 >= 4 ? 1 : 0));
+        }
+    }
+
+    /**
+     * Thrown to unwind a solve whose deadline has passed.
+     */
+    private static class Timeout extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        static final Timeout INSTANCE = new Timeout();
+
+        private Timeout() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final long deadline;
+
+    private final int[] next = new int[SQUARES + 1], prev = new int[SQUARES + 1];
+    private final int[][] moves = new int[SQUARES + 1][SQUARES], keys = new int[SQUARES + 1][SQUARES];
+    private int empties, parity;
+
+    private long nodes;
+    private int bestMove;
+
+    public OthelloEndgameSolver() {
+        this(0L);
+    }
+
+    /**
+     * @param deadline the {@link System#nanoTime()} by which to give up, or
+     *  {@code 0} for no deadline
+     */
+    public OthelloEndgameSolver(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Solves the position on {@code board} with {@code color} to move.
+     *
+     * @param board an 8x8 board
+     * @param color the color to move
+     * @return the final disc differential from {@code color}'s point of view
+     *  with best play by both sides
+     * @throws TimeoutException if the deadline passed first
+     */
+    public int solve(OthelloBoard board, Color color) throws TimeoutException {
+        OthelloBitBoard bitboard = board instanceof OthelloBitBoard ? (OthelloBitBoard) board : OthelloBitBoard.from(board);
+        return solve(bitboard.getDiscs(color), bitboard.getDiscs(color.opposite()));
+    }
+
+    /**
+     * Solves the position where the player to move owns {@code own}.
+     *
+     * @param own the discs of the player to move
+     * @param opp the discs of the other player
+     * @return the final disc differential from the mover's point of view
+     *  with best play by both sides
+     * @throws TimeoutException if the deadline passed first
+     */
+    public int solve(long own, long opp) throws TimeoutException {
+        Preconditions.checkArgument((own & opp) == 0L);
+
+        long empty = ~(own | opp);
+        empties = Long.bitCount(empty);
+        parity = 0;
+        nodes = 0L;
+        bestMove = NO_MOVE;
+
+        int last = HEAD;
+        for (int square : SQUARE_ORDER) {
+            if ((empty & (1L << square)) != 0L) {
+                next[last] = square;
+                prev[square] = last;
+                last = square;
+                parity ^= QUADRANT[square];
+            }
+        }
+        next[last] = HEAD;
+        prev[HEAD] = last;
+
+        try {
+            return solve(own, opp, -SQUARES - 1, SQUARES + 1, true);
+        }
+        catch (Timeout timeout) {
+            throw new TimeoutException();
+        }
+    }
+
+    /**
+     * Gets the best move found by the last solve.
+     *
+     * @return the square index, {@code rank * 8 + file}, or {@code -1} if
+     *  the player to move had to pass
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Gets the number of positions visited by the last solve.
+     *
+     * @return the number of nodes
+     */
+    public long getNodesSearched() {
+        return nodes;
+    }
+
+    private int solve(long own, long opp, int alpha, int beta, boolean root) {
+        if ((++nodes & (CHECK_CLOCK_EVERY - 1)) == 0 && deadline != 0L && System.nanoTime() - deadline > 0) {
+            throw Timeout.INSTANCE;
+        }
+
+        if (empties == 0) {
+            return Long.bitCount(own) - Long.bitCount(opp);
+        }
+        if (empties == 1 && !root) {
+            return solveLast(own, opp);
+        }
+
+        long legal = OthelloBitBoard.moves(own, opp);
+        if (legal == 0L) {
+            if (OthelloBitBoard.moves(opp, own) == 0L) {
+                return Long.bitCount(own) - Long.bitCount(opp);
+            }
+            return -solve(opp, own, -beta, -alpha, false);
+        }
+
+        int[] list = moves[empties], key = keys[empties];
+        int count = 0;
+        if (empties > FASTEST_FIRST_EMPTIES) {
+            for (int square = next[HEAD]; square != HEAD; square = next[square]) {
+                if ((legal & (1L << square)) != 0L) {
+                    long flips = OthelloBitBoard.flips(square, own, opp);
+                    int mobility = Long.bitCount(OthelloBitBoard.moves(opp & ~flips, own | flips | (1L << square)));
+                    list[count] = square;
+                    key[count] = (mobility << 1) | ((parity & QUADRANT[square]) != 0 ? 0 : 1);
+                    ++count;
+                }
+            }
+            sort(list, key, count);
+        }
+        else {
+            for (int odd = 1; odd >= 0; --odd) {
+                for (int square = next[HEAD]; square != HEAD; square = next[square]) {
+                    if ((legal & (1L << square)) != 0L && ((parity & QUADRANT[square]) != 0) == (odd == 1)) {
+                        list[count++] = square;
+                    }
+                }
+            }
+        }
+
+        int score;
+        for (int i = 0; i < count; ++i) {
+            int square = list[i];
+            long flips = OthelloBitBoard.flips(square, own, opp);
+
+            remove(square);
+            score = -solve(opp & ~flips, own | flips | (1L << square), -beta, -alpha, false);
+            restore(square);
+
+            if (score > alpha) {
+                alpha = score;
+                if (root) {
+                    bestMove = square;
+                }
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Scores the position with exactly one empty square left.
+     */
+    private int solveLast(long own, long opp) {
+        int square = next[HEAD];
+        long flips = OthelloBitBoard.flips(square, own, opp);
+        if (flips != 0L) {
+            return Long.bitCount(own | flips) + 1 - Long.bitCount(opp & ~flips);
+        }
+
+        ++nodes;
+        flips = OthelloBitBoard.flips(square, opp, own);
+        if (flips != 0L) {
+            return Long.bitCount(own & ~flips) - Long.bitCount(opp | flips) - 1;
+        }
+        return Long.bitCount(own) - Long.bitCount(opp);
+    }
+
+    private void remove(int square) {
+        next[prev[square]] = next[square];
+        prev[next[square]] = prev[square];
+        parity ^= QUADRANT[square];
+        --empties;
+    }
+
+    private void restore(int square) {
+        next[prev[square]] = square;
+        prev[next[square]] = square;
+        parity ^= QUADRANT[square];
+        ++empties;
+    }
+
+    // insertion sort, ascending by key
+    private static void sort(int[] list, int[] key, int count) {
+        for (int i = 1; i < count; ++i) {
+            int square = list[i], k = key[i], j = i - 1;
+            for (; j >= 0 && key[j] > k; --j) {
+                list[j + 1] = list[j];
+                key[j + 1] = key[j];
+            }
+            list[j + 1] = square;
+            key[j + 1] = k;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package info.jayharris.othello;
+
+/**
+ * A static evaluation of an Othello position.
+ */
+@FunctionalInterface
+public interface OthelloEvaluator {
+
+    /**
+     * Scores the position on {@code board} from {@code color}'s point of
+     * view. Higher is better for {@code color}, and for a symmetric
+     * evaluator {@code evaluate(board, color) == -evaluate(board, color.opposite())}.
+     *
+     * @param board the board
+     * @param color the color to score for
+     * @return the score
+     */
+    int evaluate(Othello.Board board, Othello.Color color);
+
+    /**
+     * Gets an evaluator that scores a position by its disc differential.
+     *
+     * @return the evaluator
+     */
+    static OthelloEvaluator discDifference() {
+        return (board, color) -> board.getDiscCount(color) - board.getDiscCount(color.opposite());
+    }
+}
@@ -0,0 +1,88 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A pool of games between players from the same two factories, so that
+ * workloads that play many games reuse boards and players instead of
+ * building new ones for every game.
+ *
+ * A game taken from the pool is reset and reseeded, and plays out exactly
+ * like a new game created with {@code new Random(seed)}. The pool can be
+ * shared between threads; each game is used by one thread at a time.
+ */
+public class OthelloGamePool {
+
+    private final int squaresPerSide;
+    private final OthelloPlayerFactory black, white;
+    private final Queue<Othello> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param black builds the black players
+     * @param white builds the white players
+     */
+    public OthelloGamePool(OthelloPlayerFactory black, OthelloPlayerFactory white) {
+        this(Othello.Board.DEFAULT_SQUARES_PER_SIDE, black, white);
+    }
+
+    /**
+     * @param squaresPerSide the size of the games' boards
+     * @param black builds the black players
+     * @param white builds the white players
+     * @see Othello#Othello(int, OthelloPlayerFactory, OthelloPlayerFactory, Random)
+     */
+    public OthelloGamePool(int squaresPerSide, OthelloPlayerFactory black, OthelloPlayerFactory white) {
+        this.squaresPerSide = squaresPerSide;
+        this.black = Preconditions.checkNotNull(black);
+        this.white = Preconditions.checkNotNull(white);
+    }
+
+    /**
+     * Takes a game from the pool, or creates one if none is idle, and sets
+     * it up in the initial position.
+     *
+     * @param seed the seed for the game's source of randomness
+     * @return the game, to be given back with {@link #release}
+     */
+    public Othello acquire(long seed) {
+        Othello othello = idle.poll();
+        if (othello == null) {
+            return new Othello(squaresPerSide, black, white, new Random(seed));
+        }
+        othello.reset(seed);
+        return othello;
+    }
+
+    /**
+     * Gives a game back to the pool. The game mustn't be used afterwards.
+     *
+     * @param othello a game from {@link #acquire}
+     */
+    public void release(Othello othello) {
+        idle.add(othello);
+    }
+
+    /**
+     * {@linkplain Othello#close() Closes} every game waiting in the pool
+     * and empties it. Games given back afterwards are kept as usual.
+     */
+    public void close() {
+        Othello othello;
+        while ((othello = idle.poll()) != null) {
+            othello.close();
+        }
+    }
+
+    /**
+     * Gets the number of games waiting in the pool.
+     *
+     * @return the number of idle games
+     */
+    public int getIdle() {
+        return idle.size();
+    }
+}
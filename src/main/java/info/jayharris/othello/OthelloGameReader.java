@@ -0,0 +1,194 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import info.jayharris.othello.Othello.Color;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static info.jayharris.othello.OthelloGameWriter.GAME_HEADER_SIZE;
+import static info.jayharris.othello.OthelloGameWriter.MAX_PLIES;
+import static info.jayharris.othello.OthelloGameWriter.PASS;
+
+/**
+ * Scans an archive written by {@link OthelloGameWriter}.
+ *
+ * The archive is memory-mapped a window at a time, so archives larger than
+ * memory (or than 2GB) can be read. The reader is a cursor: {@link #next()}
+ * moves to the next game and the getters read straight from the mapped
+ * bytes, so scanning doesn't create an object per game.
+ *
+ * A reader is not thread-safe.
+ */
+public class OthelloGameReader implements Closeable {
+
+    static final int DEFAULT_WINDOW = 1 << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int window;
+    private final List<String> players;
+
+    private MappedByteBuffer buffer;
+    private long base;
+    private int offset, length;
+
+    /**
+     * Opens an archive, reading its header.
+     *
+     * @param path the archive
+     * @throws IOException if the archive can't be read or isn't an archive
+     */
+    public OthelloGameReader(Path path) throws IOException {
+        this(path, DEFAULT_WINDOW);
+    }
+
+    OthelloGameReader(Path path, int window) throws IOException {
+        Preconditions.checkArgument(window >= GAME_HEADER_SIZE + MAX_PLIES);
+
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.window = window;
+
+        try {
+            // unbuffered, so that the channel's position ends up just past the header
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            if (in.readInt() != OthelloGameWriter.MAGIC || in.readUnsignedByte() != OthelloGameWriter.VERSION) {
+                throw new IOException(path + " isn't a game archive");
+            }
+            String[] players = new String[in.readUnsignedByte()];
+            for (int i = 0; i < players.length; ++i) {
+                players[i] = in.readUTF();
+            }
+            this.players = ImmutableList.copyOf(players);
+
+            map(channel.position());
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public List<String> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Moves to the next game.
+     *
+     * @return {@code true} iff there was another game
+     * @throws IOException if the archive can't be read or ends partway
+     *  through a game
+     */
+    public boolean next() throws IOException {
+        long position = base + offset + length;
+        if (position >= size) {
+            return false;
+        }
+        if (position + GAME_HEADER_SIZE + MAX_PLIES > base + buffer.limit() && base + buffer.limit() < size) {
+            map(position);
+        }
+        else {
+            offset += length;
+        }
+
+        if (offset + GAME_HEADER_SIZE > buffer.limit() ||
+                offset + (length = GAME_HEADER_SIZE + getPlyCount()) > buffer.limit()) {
+            length = 0;
+            throw new EOFException("truncated game at offset " + position);
+        }
+        return true;
+    }
+
+    private void map(long position) throws IOException {
+        base = position;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(window, size - position));
+        offset = length = 0;
+    }
+
+    public String getBlackPlayer() {
+        return players.get(buffer.get(offset) & 0xff);
+    }
+
+    public String getWhitePlayer() {
+        return players.get(buffer.get(offset + 1) & 0xff);
+    }
+
+    public long getSeed() {
+        return buffer.getLong(offset + 2);
+    }
+
+    /**
+     * Gets the number of discs {@code color} had at the end of the game.
+     *
+     * @param color the color
+     * @return the number of discs
+     */
+    public int getDiscCount(Color color) {
+        return buffer.get(offset + (color == Color.BLACK ? 10 : 11)) & 0xff;
+    }
+
+    /**
+     * Gets the winner of the game.
+     *
+     * @return the color with more discs, or {@code null} if it was a draw
+     */
+    public Color getWinner() {
+        int black = getDiscCount(Color.BLACK) - getDiscCount(Color.WHITE);
+        return black == 0 ? null : (black > 0 ? Color.BLACK : Color.WHITE);
+    }
+
+    /**
+     * Gets the number of plies in the game, counting passes.
+     *
+     * @return the number of plies
+     */
+    public int getPlyCount() {
+        return buffer.get(offset + 12) & 0xff;
+    }
+
+    /**
+     * Gets a ply of the game.
+     *
+     * @param ply the ply, {@code 0 <= ply < getPlyCount()}
+     * @return the square index, {@code rank * 8 + file}, or
+     *  {@link OthelloGameWriter#PASS}
+     */
+    public int getPly(int ply) {
+        Preconditions.checkElementIndex(ply, getPlyCount());
+        return buffer.get(offset + GAME_HEADER_SIZE + ply);
+    }
+
+    /**
+     * Replays the first {@code plies} plies of the game on a bitboard.
+     *
+     * @param plies the number of plies to play
+     * @return the position after {@code plies} plies
+     * @throws IllegalStateException if the game contains an illegal move
+     */
+    public OthelloBitBoard replay(int plies) {
+        Preconditions.checkArgument(plies >= 0 && plies <= getPlyCount());
+
+        OthelloBitBoard board = OthelloBitBoard.initial();
+        Color color = Color.BLACK;
+        for (int ply = 0; ply < plies; ++ply, color = color.opposite()) {
+            int square = getPly(ply);
+            Preconditions.checkState(square == PASS || board.play(square, color) != 0L,
+                    "illegal move at ply %s", ply);
+        }
+        return board;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+}
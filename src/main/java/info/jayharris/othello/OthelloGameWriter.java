@@ -0,0 +1,187 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Writes games to a compact binary archive as they're played.
+ *
+ * An archive starts with a header: the magic number {@code "OTHG"}, a
+ * version byte, and a table of up to 255 player names (a count byte, then
+ * each name as written by {@link DataOutput#writeUTF}). Then come the games,
+ * one after another, each laid out as
+ *
+ * <pre>
+ *   offset  size  contents
+ *        0     1  black player, an index into the name table
+ *        1     1  white player
+ *        2     8  the game's seed
+ *       10     1  black discs at the end of the game
+ *       11     1  white discs at the end of the game
+ *       12     1  n, the number of plies
+ *       13     n  the plies: a square index, rank * 8 + file, or {@link #PASS}
+ * </pre>
+ *
+ * so a typical game takes about 75 bytes. The format is for 8x8 boards.
+ *
+ * Games from several threads can be written to one writer; each game is
+ * written whole.
+ *
+ * @see OthelloGameReader
+ */
+public class OthelloGameWriter implements Closeable, Flushable {
+
+    static final int MAGIC = 0x4f544847, VERSION = 1;
+
+    /** The ply recorded when a player has to pass. */
+    public static final int PASS = 64;
+
+    static final int GAME_HEADER_SIZE = 13, MAX_PLIES = 255;
+
+    private final DataOutputStream out;
+    private final List<String> players;
+
+    /**
+     * Starts an archive, writing its header.
+     *
+     * @param out the stream to write to
+     * @param players the names of the players that will appear in the archive
+     * @throws IOException if the header can't be written
+     */
+    public OthelloGameWriter(OutputStream out, String... players) throws IOException {
+        Preconditions.checkArgument(players.length <= 0xff);
+
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.players = ImmutableList.copyOf(players);
+
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeByte(players.length);
+        for (String player : players) {
+            this.out.writeUTF(player);
+        }
+    }
+
+    public List<String> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Starts recording a game. Pass the result to
+     * {@link Othello#setPlyListener} and call {@link Game#finish} when the
+     * game is over.
+     *
+     * @param black the index of the black player's name
+     * @param white the index of the white player's name
+     * @param seed the game's seed, or anything else worth keeping in 8 bytes
+     * @return the game
+     */
+    public Game newGame(int black, int white, long seed) {
+        Preconditions.checkElementIndex(black, players.size());
+        Preconditions.checkElementIndex(white, players.size());
+
+        return new Game(black, white, seed);
+    }
+
+    /**
+     * Imports a game from a transcript, the moves run together as in
+     * {@code "f5d6c3..."} with passes left out, and writes it to the
+     * archive. The game is replayed to put the passes back in and to find
+     * the final disc counts.
+     *
+     * @param transcript the moves
+     * @param black the index of the black player's name
+     * @param white the index of the white player's name
+     * @param seed anything worth keeping in 8 bytes
+     * @throws IllegalArgumentException if the transcript can't be read or
+     *  has an illegal move
+     * @throws IOException if the game can't be written
+     * @see OthelloNotation#parseMoves
+     */
+    public void writeTranscript(CharSequence transcript, int black, int white, long seed) throws IOException {
+        int[] moves = new int[MAX_PLIES];
+        int count = OthelloNotation.parseMoves(transcript, OthelloBitBoard.SQUARES_PER_SIDE, moves);
+
+        Game game = newGame(black, white, seed);
+        OthelloBitBoard board = OthelloBitBoard.initial();
+        Othello.Color color = Othello.Color.BLACK;
+        for (int i = 0; i < count; ++i, color = color.opposite()) {
+            if (!board.hasMove(color)) {
+                game.record(PASS);
+                color = color.opposite();
+            }
+
+            int move = moves[i];
+            Preconditions.checkArgument(((board.getBlack() | board.getWhite()) & (1L << move)) == 0L &&
+                    board.play(move, color) != 0L, "illegal move %s at ply %s",
+                    OthelloNotation.toString(move, OthelloBitBoard.SQUARES_PER_SIDE), i);
+            game.record(move);
+        }
+        game.finish(board);
+    }
+
+    private synchronized void write(Game game, int blackDiscs, int whiteDiscs) throws IOException {
+        out.writeByte(game.black);
+        out.writeByte(game.white);
+        out.writeLong(game.seed);
+        out.writeByte(blackDiscs);
+        out.writeByte(whiteDiscs);
+        out.writeByte(game.plies);
+        out.write(game.moves, 0, game.plies);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * A game being recorded.
+     */
+    public class Game implements OthelloPlyListener {
+
+        private final int black, white;
+        private final long seed;
+        private final byte[] moves = new byte[MAX_PLIES];
+        private int plies;
+
+        private Game(int black, int white, long seed) {
+            this.black = black;
+            this.white = white;
+            this.seed = seed;
+        }
+
+        @Override
+        public void ply(Othello.Color color, int square) {
+            Preconditions.checkArgument(square < PASS);
+
+            record(square == OthelloBoard.NO_MOVE ? PASS : square);
+        }
+
+        private void record(int move) {
+            Preconditions.checkState(plies < MAX_PLIES);
+
+            moves[plies++] = (byte) move;
+        }
+
+        /**
+         * Writes the game to the archive.
+         *
+         * @param board the board at the end of the game
+         * @throws IOException if the game can't be written
+         */
+        public void finish(OthelloBoard board) throws IOException {
+            Preconditions.checkArgument(board.getSquaresPerSide() == OthelloBitBoard.SQUARES_PER_SIDE);
+
+            write(this, board.getDiscCount(Othello.Color.BLACK), board.getDiscCount(Othello.Color.WHITE));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Reads and writes squares in algebraic notation, a file letter and a rank
+ * number such as {@code "f5"}, and move lists written as runs of squares
+ * such as {@code "f5d6c3"}.
+ *
+ * As everywhere in this package, "a1" is the <i>upper</i>-left square.
+ * Letters may be either case. Squares are parsed by hand, without regular
+ * expressions or allocation, and the names of the squares of every board
+ * size are built once, so converting in either direction is cheap enough
+ * for replaying large archives of transcripts.
+ */
+public final class OthelloNotation {
+
+    public static final int NOT_A_SQUARE = -1;
+
+    /**
+     * The names of the squares on each board size, by square index.
+     */
+    private static final String[][] NAMES = new String[Othello.Board.MAX_SQUARES_PER_SIDE + 1][];
+
+    static {
+        for (int n = Othello.Board.MIN_SQUARES_PER_SIDE; n <= Othello.Board.MAX_SQUARES_PER_SIDE; n += 2) {
+            NAMES[n] = new String[n * n];
+            for (int index = 0; index < n * n; ++index) {
+                NAMES[n][index] = String.valueOf((char) ('a' + index % n)) + (index / n + 1);
+            }
+        }
+    }
+
+    private OthelloNotation() {
+    }
+
+    /**
+     * Gets the name of a square.
+     *
+     * @param index the square index, {@code rank * squaresPerSide + file}
+     * @param squaresPerSide the size of the board
+     * @return the name, such as {@code "f5"}
+     */
+    public static String toString(int index, int squaresPerSide) {
+        Preconditions.checkArgument(squaresPerSide < NAMES.length && NAMES[squaresPerSide] != null);
+        return NAMES[squaresPerSide][index];
+    }
+
+    /**
+     * Appends the names of moves, one after another with nothing between
+     * them, as in {@code "f5d6c3"}.
+     *
+     * @param moves the square indices of the moves
+     * @param count how many moves to write from the start of {@code moves}
+     * @param squaresPerSide the size of the board
+     * @param out where to append the moves
+     * @return {@code out}
+     */
+    public static StringBuilder toString(int[] moves, int count, int squaresPerSide, StringBuilder out) {
+        for (int i = 0; i < count; ++i) {
+            out.append(toString(moves[i], squaresPerSide));
+        }
+        return out;
+    }
+
+    /**
+     * Parses the name of a square.
+     *
+     * @param text the name
+     * @param squaresPerSide the size of the board
+     * @return the square index, or {@link #NOT_A_SQUARE} if {@code text}
+     *  doesn't name a square on the board
+     */
+    public static int parseSquare(CharSequence text, int squaresPerSide) {
+        return parseSquare(text, 0, text.length(), squaresPerSide);
+    }
+
+    /**
+     * Parses the name of a square from part of a string.
+     *
+     * @param text the text
+     * @param start the index of the name's file letter
+     * @param end the index just past the name's last digit
+     * @param squaresPerSide the size of the board
+     * @return the square index, or {@link #NOT_A_SQUARE} if the text there
+     *  doesn't name a square on the board
+     */
+    public static int parseSquare(CharSequence text, int start, int end, int squaresPerSide) {
+        if (end - start < 2) {
+            return NOT_A_SQUARE;
+        }
+
+        int file = Character.toLowerCase(text.charAt(start)) - 'a';
+        if (file < 0 || file >= squaresPerSide || text.charAt(start + 1) == '0') {
+            return NOT_A_SQUARE;
+        }
+
+        int rank = 0;
+        for (int i = start + 1; i < end; ++i) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || (rank = 10 * rank + digit) > squaresPerSide) {
+                return NOT_A_SQUARE;
+            }
+        }
+        return (rank - 1) * squaresPerSide + file;
+    }
+
+    /**
+     * Parses a list of moves written one after another, such as
+     * {@code "f5d6c3"}. Whitespace and commas between moves are skipped.
+     *
+     * @param transcript the moves
+     * @param squaresPerSide the size of the board
+     * @param moves where to write the square index of each move
+     * @return the number of moves written to the front of {@code moves}
+     * @throws IllegalArgumentException if the transcript has something
+     *  other than a square in it, or more moves than fit in {@code moves}
+     */
+    public static int parseMoves(CharSequence transcript, int squaresPerSide, int[] moves) {
+        int count = 0, length = transcript.length();
+        for (int i = 0; i < length; ) {
+            char c = transcript.charAt(i);
+            if (c == ',' || Character.isWhitespace(c)) {
+                ++i;
+                continue;
+            }
+
+            int end = i + 1;
+            while (end < length && transcript.charAt(end) >= '0' && transcript.charAt(end) <= '9') {
+                ++end;
+            }
+            int square = parseSquare(transcript, i, end, squaresPerSide);
+            if (square == NOT_A_SQUARE) {
+                throw new IllegalArgumentException("not a square at " + i + ": " + transcript.subSequence(i, end));
+            }
+            Preconditions.checkArgument(count < moves.length, "more than %s moves", moves.length);
+
+            moves[count++] = square;
+            i = end;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,159 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import info.jayharris.othello.Othello.Color;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An opening book: the moves played from early positions in past games and
+ * how they turned out, looked up by position.
+ *
+ * Positions are stored from the point of view of the player to move and
+ * reduced to a canonical form under the eight symmetries of the board
+ * (see {@link OthelloSymmetry}), so
+ * that a position, its reflections and rotations, and the same position
+ * with the colors swapped share one set of entries. The book file, written
+ * by {@link OthelloOpeningBookWriter}, is a header followed by fixed-size
+ * entries sorted by the canonical position's hash, and is memory-mapped and
+ * binary-searched in place.
+ *
+ * Lookups don't change the book, so one book can be shared by any number of
+ * players and threads.
+ */
+public class OthelloOpeningBook implements Closeable {
+
+    static final int MAGIC = 0x4f54424b, VERSION = 1, HEADER_SIZE = 16;
+
+    /**
+     * An entry is the canonical position's hash (8 bytes), the number of
+     * games that played the move (4), the sum of their final disc
+     * differentials for the player to move (8), and the move (1).
+     */
+    static final int ENTRY_SIZE = 21;
+
+    public static final int NO_MOVE = -1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int entries;
+
+    /**
+     * Opens a book.
+     *
+     * @param path the book file
+     * @throws IOException if the book can't be read or isn't a book
+     */
+    public OthelloOpeningBook(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            Preconditions.checkArgument(channel.size() <= Integer.MAX_VALUE, "%s is too big", path);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(path + " isn't an opening book");
+            }
+            long count = buffer.getLong(8);
+            if (count < 0 || HEADER_SIZE + count * ENTRY_SIZE != buffer.limit()) {
+                throw new IOException(path + " is truncated");
+            }
+            entries = (int) count;
+        }
+        catch (IOException|RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of (position, move) entries in the book.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * Looks up the best book move for {@code color} on {@code board}.
+     *
+     * @param board an 8x8 board
+     * @param color the color to move
+     * @return the square index of the move, {@code rank * 8 + file}, or
+     *  {@link #NO_MOVE} if the position isn't in the book
+     */
+    public int lookup(OthelloBoard board, Color color) {
+        OthelloBitBoard bitboard = board instanceof OthelloBitBoard ? (OthelloBitBoard) board : OthelloBitBoard.from(board);
+        return lookup(bitboard.getDiscs(color), bitboard.getDiscs(color.opposite()));
+    }
+
+    /**
+     * Looks up the best book move for the player who owns {@code own}.
+     *
+     * The best move is the one with the highest average final disc
+     * differential, with ties going to the move played more often.
+     *
+     * @param own the discs of the player to move
+     * @param opp the discs of the other player
+     * @return the square index of the move, or {@link #NO_MOVE}
+     */
+    public int lookup(long own, long opp) {
+        int symmetry = OthelloSymmetry.canonicalSymmetry(own, opp);
+        long key = key(OthelloSymmetry.transform(own, symmetry), OthelloSymmetry.transform(opp, symmetry));
+
+        int best = NO_MOVE, bestGames = 0;
+        double bestScore = 0.0;
+        for (int i = find(key); i < entries && keyAt(i) == key; ++i) {
+            int offset = HEADER_SIZE + i * ENTRY_SIZE, games = buffer.getInt(offset + 8);
+            double score = (double) buffer.getLong(offset + 12) / games;
+
+            if (best == NO_MOVE || score > bestScore || (score == bestScore && games > bestGames)) {
+                best = buffer.get(offset + 20);
+                bestGames = games;
+                bestScore = score;
+            }
+        }
+        return best == NO_MOVE ? NO_MOVE : OthelloSymmetry.transform(best, OthelloSymmetry.inverse(symmetry));
+    }
+
+    /**
+     * Finds the first entry whose key isn't less than {@code key}.
+     */
+    private int find(long key) {
+        int lo = 0, hi = entries;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keyAt(mid) < key) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private long keyAt(int entry) {
+        return buffer.getLong(HEADER_SIZE + entry * ENTRY_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Gets the hash a canonical position is stored under.
+     *
+     * @param own the discs of the player to move
+     * @param opp the discs of the other player
+     * @return the key
+     */
+    static long key(long own, long opp) {
+        return OthelloZobrist.hash(own, opp);
+    }
+}
@@ -0,0 +1,183 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import info.jayharris.othello.Othello.Color;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Collects the moves played in the early plies of archived games and writes
+ * them out as an {@link OthelloOpeningBook}.
+ *
+ * Each move is credited with the final disc differential of its game for
+ * the player who made it. The statistics are kept in memory until the book
+ * is written, one small record per distinct position.
+ */
+public class OthelloOpeningBookWriter {
+
+    public static final int DEFAULT_PLIES = 20, DEFAULT_MIN_GAMES = 4;
+
+    /**
+     * The moves seen from one canonical position.
+     */
+    private static class Position {
+
+        byte[] moves = new byte[2];
+        int[] games = new int[2];
+        long[] scores = new long[2];
+        int count;
+
+        void add(int move, int score) {
+            int i = 0;
+            while (i < count && moves[i] != move) {
+                ++i;
+            }
+            if (i == count) {
+                if (count == moves.length) {
+                    moves = Arrays.copyOf(moves, 2 * count);
+                    games = Arrays.copyOf(games, 2 * count);
+                    scores = Arrays.copyOf(scores, 2 * count);
+                }
+                moves[count++] = (byte) move;
+            }
+            ++games[i];
+            scores[i] += score;
+        }
+    }
+
+    private final int plies;
+    private final Map<Long, Position> positions = new HashMap<>();
+    private long games;
+
+    public OthelloOpeningBookWriter() {
+        this(DEFAULT_PLIES);
+    }
+
+    /**
+     * @param plies how many plies of each game to take moves from
+     */
+    public OthelloOpeningBookWriter(int plies) {
+        Preconditions.checkArgument(plies > 0);
+        this.plies = plies;
+    }
+
+    /**
+     * Adds every game in an archive.
+     *
+     * @param reader the archive, positioned before its first game
+     * @throws IOException if the archive can't be read
+     */
+    public void addAll(OthelloGameReader reader) throws IOException {
+        while (reader.next()) {
+            add(reader);
+        }
+    }
+
+    /**
+     * Adds the game {@code reader} is on.
+     *
+     * @param reader the archive
+     */
+    public void add(OthelloGameReader reader) {
+        int differential = reader.getDiscCount(Color.BLACK) - reader.getDiscCount(Color.WHITE);
+        OthelloBitBoard board = OthelloBitBoard.initial();
+        Color color = Color.BLACK;
+
+        for (int ply = 0; ply < Math.min(plies, reader.getPlyCount()); ++ply, color = color.opposite()) {
+            int move = reader.getPly(ply);
+            if (move == OthelloGameWriter.PASS) {
+                continue;
+            }
+
+            long own = board.getDiscs(color), opp = board.getDiscs(color.opposite());
+            int symmetry = OthelloSymmetry.canonicalSymmetry(own, opp);
+            long key = OthelloOpeningBook.key(OthelloSymmetry.transform(own, symmetry), OthelloSymmetry.transform(opp, symmetry));
+            positions.computeIfAbsent(key, (k) -> new Position())
+                    .add(OthelloSymmetry.transform(move, symmetry), color == Color.BLACK ? differential : -differential);
+
+            Preconditions.checkState(board.play(move, color) != 0L, "illegal move at ply %s", ply);
+        }
+        ++games;
+    }
+
+    /**
+     * Gets the number of games added so far.
+     *
+     * @return the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Writes the book, leaving out moves played in fewer than
+     * {@code minGames} games.
+     *
+     * @param out the stream to write to
+     * @param minGames the fewest games a move must have been played in
+     * @return the number of entries written
+     * @throws IOException if the book can't be written
+     */
+    public long write(OutputStream out, int minGames) throws IOException {
+        Preconditions.checkArgument(minGames > 0);
+
+        long[] keys = new long[positions.size()];
+        long entries = 0L;
+        int n = 0;
+        for (Map.Entry<Long, Position> entry : positions.entrySet()) {
+            keys[n++] = entry.getKey();
+            Position position = entry.getValue();
+            for (int i = 0; i < position.count; ++i) {
+                if (position.games[i] >= minGames) {
+                    ++entries;
+                }
+            }
+        }
+        Arrays.sort(keys);
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(OthelloOpeningBook.MAGIC);
+        data.writeInt(OthelloOpeningBook.VERSION);
+        data.writeLong(entries);
+        for (long key : keys) {
+            Position position = positions.get(key);
+            for (int i = 0; i < position.count; ++i) {
+                if (position.games[i] >= minGames) {
+                    data.writeLong(key);
+                    data.writeInt(position.games[i]);
+                    data.writeLong(position.scores[i]);
+                    data.writeByte(position.moves[i]);
+                }
+            }
+        }
+        data.flush();
+        return entries;
+    }
+
+    /**
+     * Builds a book from the command line:
+     * {@code OthelloOpeningBookWriter book plies minGames archive...}.
+     */
+    public static void main(String... args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("usage: OthelloOpeningBookWriter book plies minGames archive...");
+            System.exit(1);
+        }
+
+        OthelloOpeningBookWriter writer = new OthelloOpeningBookWriter(Integer.parseInt(args[1]));
+        for (int i = 3; i < args.length; ++i) {
+            try (OthelloGameReader reader = new OthelloGameReader(Paths.get(args[i]))) {
+                writer.addAll(reader);
+            }
+        }
+
+        long entries;
+        try (OutputStream out = Files.newOutputStream(Paths.get(args[0]))) {
+            entries = writer.write(out, Integer.parseInt(args[2]));
+        }
+        System.out.printf("%d games, %d positions, %d entries%n", writer.getGames(), writer.positions.size(), entries);
+    }
+}
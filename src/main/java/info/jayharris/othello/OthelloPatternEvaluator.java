@@ -0,0 +1,191 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+
+import java.io.*;
+
+/**
+ * An {@link OthelloEvaluator} that scores a position by looking up each
+ * edge, corner, row, column and diagonal pattern on the board in a table of
+ * weights.
+ *
+ * The board keeps the table index of every pattern up to date as discs are
+ * placed and flipped, so evaluating is a few dozen array lookups with no
+ * walking of the board. Weights are from black's point of view; see
+ * {@link OthelloPatterns} for the patterns and how they're indexed.
+ *
+ * The default weights just spread {@link OthelloPositionalEvaluator}'s
+ * square weights over the patterns that cover each square. They come to
+ * about 670 KB, so players that only read them should share
+ * {@link #getDefault()}. Trained weights can be loaded with
+ * {@link #read(InputStream)}.
+ *
+ * Evaluating only reads the weights, so an evaluator is thread-safe as long
+ * as nobody changes its tables.
+ */
+public class OthelloPatternEvaluator implements OthelloEvaluator {
+
+    private static final int MAGIC = 0x4f545057;
+
+    /**
+     * The scale of the default weights, so that splitting a square's
+     * weight among its patterns stays (nearly) exact in integers.
+     */
+    static final int DEFAULT_SCALE = 16;
+
+    private final int[][] weights;
+
+    /**
+     * Holds the one evaluator with the default weights, built the first
+     * time it's asked for.
+     */
+    private static final class DefaultHolder {
+        static final OthelloPatternEvaluator INSTANCE = new OthelloPatternEvaluator(defaultWeights());
+    }
+
+    /**
+     * Creates an evaluator with its own copy of the default weights, which
+     * can be changed without affecting any other evaluator.
+     */
+    public OthelloPatternEvaluator() {
+        this(copy(DefaultHolder.INSTANCE.weights));
+    }
+
+    /**
+     * Creates an evaluator with the given weights.
+     *
+     * @param weights a table for each pattern type, indexed by configuration
+     */
+    public OthelloPatternEvaluator(int[][] weights) {
+        Preconditions.checkArgument(weights.length == OthelloPatterns.TYPES);
+        for (int type = 0; type < OthelloPatterns.TYPES; ++type) {
+            Preconditions.checkArgument(weights[type].length == OthelloPatterns.size(type));
+        }
+        this.weights = weights;
+    }
+
+    /**
+     * Gets the evaluator with the default weights, which is shared by
+     * everyone who asks. Its tables mustn't be changed.
+     *
+     * @return the evaluator
+     */
+    public static OthelloPatternEvaluator getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    @Override
+    public int evaluate(Board board, Color color) {
+        Preconditions.checkArgument(board.SQUARES_PER_SIDE == OthelloPatterns.SQUARES_PER_SIDE);
+
+        int score = 0;
+        int[] patterns = board.patterns;
+        for (int instance = 0; instance < patterns.length; ++instance) {
+            score += weights[OthelloPatterns.INSTANCE_TYPE[instance]][patterns[instance]];
+        }
+        return color == Color.BLACK ? score : -score;
+    }
+
+    /**
+     * Gets the weight table of a pattern type. The table is live; changes to
+     * it change this evaluator.
+     *
+     * @param type the pattern type
+     * @return the table, indexed by configuration
+     */
+    int[] getWeights(int type) {
+        return weights[type];
+    }
+
+    /**
+     * Reads an evaluator's weights, as written by {@link #write(OutputStream)}.
+     *
+     * @param in the stream to read from
+     * @return the evaluator
+     * @throws IOException if the weights can't be read
+     */
+    public static OthelloPatternEvaluator read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC || data.readInt() != OthelloPatterns.TYPES) {
+            throw new IOException("not a pattern weights file");
+        }
+
+        int[][] weights = new int[OthelloPatterns.TYPES][];
+        for (int type = 0; type < weights.length; ++type) {
+            weights[type] = new int[OthelloPatterns.size(type)];
+            for (int i = 0; i < weights[type].length; ++i) {
+                weights[type][i] = data.readInt();
+            }
+        }
+        return new OthelloPatternEvaluator(weights);
+    }
+
+    /**
+     * Writes this evaluator's weights.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the weights can't be written
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(OthelloPatterns.TYPES);
+        for (int[] table : weights) {
+            for (int weight : table) {
+                data.writeInt(weight);
+            }
+        }
+        data.flush();
+    }
+
+    private static int[][] copy(int[][] weights) {
+        int[][] copy = new int[weights.length][];
+        for (int type = 0; type < weights.length; ++type) {
+            copy[type] = weights[type].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Builds weights that sum to {@link #DEFAULT_SCALE} times the positional
+     * evaluation (without mobility), give or take rounding.
+     */
+    private static int[][] defaultWeights() {
+        int[] coverage = new int[OthelloPatterns.SQUARES];
+        for (int[] squares : OthelloPatterns.INSTANCE_SQUARES) {
+            for (int square : squares) {
+                ++coverage[square];
+            }
+        }
+
+        // every instance of a type is a symmetric image of the first, whose
+        // squares have the same weights and coverage
+        int[][] weights = new int[OthelloPatterns.TYPES][];
+        for (int instance = 0; instance < OthelloPatterns.INSTANCE_TYPE.length; ++instance) {
+            int type = OthelloPatterns.INSTANCE_TYPE[instance];
+            if (weights[type] != null) {
+                continue;
+            }
+
+            int[] squares = OthelloPatterns.INSTANCE_SQUARES[instance], share = new int[squares.length];
+            for (int i = 0; i < squares.length; ++i) {
+                int square = squares[i];
+                share[i] = DEFAULT_SCALE * OthelloPositionalEvaluator.getWeight(
+                        OthelloPatterns.SQUARES_PER_SIDE, square / OthelloPatterns.SQUARES_PER_SIDE,
+                        square % OthelloPatterns.SQUARES_PER_SIDE) / coverage[square];
+            }
+
+            weights[type] = new int[OthelloPatterns.size(type)];
+            for (int index = 0; index < weights[type].length; ++index) {
+                int score = 0;
+                for (int i = 0, rest = index; i < squares.length; ++i, rest /= 3) {
+                    score += rest % 3 == 1 ? share[i] : (rest % 3 == 2 ? -share[i] : 0);
+                }
+                weights[type][index] = score;
+            }
+        }
+        return weights;
+    }
+}
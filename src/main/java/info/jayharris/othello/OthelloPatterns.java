@@ -0,0 +1,176 @@
+package info.jayharris.othello;
+
+import java.util.*;
+
+/**
+ * The geometry of the patterns used by {@link OthelloPatternEvaluator}.
+ *
+ * A pattern is a fixed list of squares, such as an edge or a diagonal. Each
+ * pattern type comes in several instances, its images under the symmetries
+ * of the board, and all instances of a type share one weight table. The
+ * configuration of an instance is read as a base-3 number, one digit per
+ * square (0 for empty, 1 for black, 2 for white) with the first square the
+ * least significant, which indexes its type's table.
+ *
+ * {@link Othello.Board} keeps the index of every instance up to date as
+ * discs are placed and flipped. Patterns are only defined for 8x8 boards.
+ */
+final class OthelloPatterns {
+
+    static final int SQUARES_PER_SIDE = 8, SQUARES = SQUARES_PER_SIDE * SQUARES_PER_SIDE;
+
+    static final int EDGE_2X = 0, CORNER_3X3 = 1, CORNER_2X5 = 2,
+                     HV2 = 3, HV3 = 4, HV4 = 5,
+                     DIAG8 = 6, DIAG7 = 7, DIAG6 = 8, DIAG5 = 9, DIAG4 = 10;
+
+    /** Each type's squares as {rank, file} pairs, as seen from the a1 corner. */
+    private static final int[][][] SHAPES = {
+            { {0, 0}, {0, 1}, {0, 2}, {0, 3}, {0, 4}, {0, 5}, {0, 6}, {0, 7}, {1, 1}, {1, 6} },
+            { {0, 0}, {0, 1}, {0, 2}, {1, 0}, {1, 1}, {1, 2}, {2, 0}, {2, 1}, {2, 2} },
+            { {0, 0}, {0, 1}, {0, 2}, {0, 3}, {0, 4}, {1, 0}, {1, 1}, {1, 2}, {1, 3}, {1, 4} },
+            { {1, 0}, {1, 1}, {1, 2}, {1, 3}, {1, 4}, {1, 5}, {1, 6}, {1, 7} },
+            { {2, 0}, {2, 1}, {2, 2}, {2, 3}, {2, 4}, {2, 5}, {2, 6}, {2, 7} },
+            { {3, 0}, {3, 1}, {3, 2}, {3, 3}, {3, 4}, {3, 5}, {3, 6}, {3, 7} },
+            { {0, 0}, {1, 1}, {2, 2}, {3, 3}, {4, 4}, {5, 5}, {6, 6}, {7, 7} },
+            { {0, 1}, {1, 2}, {2, 3}, {3, 4}, {4, 5}, {5, 6}, {6, 7} },
+            { {0, 2}, {1, 3}, {2, 4}, {3, 5}, {4, 6}, {5, 7} },
+            { {0, 3}, {1, 4}, {2, 5}, {3, 6}, {4, 7} },
+            { {0, 4}, {1, 5}, {2, 6}, {3, 7} }
+    };
+
+    static final int TYPES = SHAPES.length;
+
+    /** The type of each instance. */
+    static final int[] INSTANCE_TYPE;
+
+    /** The square indices of each instance, in the order of its type's shape. */
+    static final int[][] INSTANCE_SQUARES;
+
+    /** For each square, the instances it's in and its digit's place value in each. */
+    static final int[][] SQUARE_INSTANCES, SQUARE_POWERS;
+
+    static {
+        List<Integer> types = new ArrayList<>();
+        List<int[]> instances = new ArrayList<>();
+
+        for (int type = 0; type < TYPES; ++type) {
+            Set<Set<Integer>> seen = new HashSet<>();
+            for (int symmetry = 0; symmetry < 8; ++symmetry) {
+                int[] squares = new int[SHAPES[type].length];
+                Set<Integer> set = new HashSet<>();
+                for (int i = 0; i < squares.length; ++i) {
+                    set.add(squares[i] = transform(symmetry, SHAPES[type][i][0], SHAPES[type][i][1]));
+                }
+                if (seen.add(set)) {
+                    types.add(type);
+                    instances.add(squares);
+                }
+            }
+        }
+
+        INSTANCE_TYPE = new int[types.size()];
+        INSTANCE_SQUARES = instances.toArray(new int[instances.size()][]);
+        for (int i = 0; i < INSTANCE_TYPE.length; ++i) {
+            INSTANCE_TYPE[i] = types.get(i);
+        }
+
+        int[] counts = new int[SQUARES];
+        for (int[] squares : INSTANCE_SQUARES) {
+            for (int square : squares) {
+                ++counts[square];
+            }
+        }
+        SQUARE_INSTANCES = new int[SQUARES][];
+        SQUARE_POWERS = new int[SQUARES][];
+        for (int square = 0; square < SQUARES; ++square) {
+            SQUARE_INSTANCES[square] = new int[counts[square]];
+            SQUARE_POWERS[square] = new int[counts[square]];
+            counts[square] = 0;
+        }
+        for (int instance = 0; instance < INSTANCE_SQUARES.length; ++instance) {
+            int power = 1;
+            for (int square : INSTANCE_SQUARES[instance]) {
+                SQUARE_INSTANCES[square][counts[square]] = instance;
+                SQUARE_POWERS[square][counts[square]] = power;
+                ++counts[square];
+                power *= 3;
+            }
+        }
+    }
+
+    private OthelloPatterns() {
+    }
+
+    /**
+     * Gets the number of configurations of a pattern type, the size of its
+     * weight table.
+     *
+     * @param type the type
+     * @return {@code 3} to the number of squares in the type
+     */
+    static int size(int type) {
+        int size = 1;
+        for (int i = 0; i < SHAPES[type].length; ++i) {
+            size *= 3;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of squares in a pattern type.
+     *
+     * @param type the type
+     * @return the number of squares
+     */
+    static int length(int type) {
+        return SHAPES[type].length;
+    }
+
+    /**
+     * Gets the base-3 digit of a square with a disc of {@code color}.
+     *
+     * @param color the color, or {@code null} for an empty square
+     * @return the digit
+     */
+    static int digit(Othello.Color color) {
+        return color == null ? 0 : (color == Othello.Color.BLACK ? 1 : 2);
+    }
+
+    /**
+     * Computes the index of a pattern instance from scratch.
+     *
+     * @param board an 8x8 board
+     * @param instance the instance
+     * @return the instance's index into its type's weight table
+     */
+    static int index(OthelloBoard board, int instance) {
+        int index = 0;
+        int[] squares = INSTANCE_SQUARES[instance];
+        for (int i = squares.length - 1; i >= 0; --i) {
+            index = 3 * index + digit(board.getColor(squares[i] / SQUARES_PER_SIDE, squares[i] % SQUARES_PER_SIDE));
+        }
+        return index;
+    }
+
+    /**
+     * Maps {@code (rank, file)} through one of the eight symmetries of the
+     * board.
+     *
+     * @return the square index of the image
+     */
+    private static int transform(int symmetry, int rank, int file) {
+        int last = SQUARES_PER_SIDE - 1;
+        if ((symmetry & 1) != 0) {
+            rank = last - rank;
+        }
+        if ((symmetry & 2) != 0) {
+            file = last - file;
+        }
+        if ((symmetry & 4) != 0) {
+            int t = rank;
+            rank = file;
+            file = t;
+        }
+        return rank * SQUARES_PER_SIDE + file;
+    }
+}
@@ -0,0 +1,122 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+
+/**
+ * Counts the positions reachable in exactly {@code depth} plies from the
+ * initial position ("perft"), checking the move generator against known
+ * counts and measuring how fast it runs.
+ *
+ * A pass counts as a ply of its own, and a finished game counts as one leaf
+ * wherever it ends, so the counts match the usual published values.
+ */
+public class OthelloPerft {
+
+    /**
+     * The depth counted to from the command line when none is given.
+     */
+    public static final int DEFAULT_DEPTH = 10;
+
+    /**
+     * The number of leaves at each depth from the initial 8x8 position.
+     */
+    static final long[] REFERENCE = {
+            1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L, 212258800L, 1939886636L
+    };
+
+    private final Board board;
+    private final int[][] buffers;
+    private final Board.Move[] moves;
+
+    /**
+     * @param squaresPerSide the size of the board
+     * @param maxDepth the deepest count that will be asked for
+     */
+    public OthelloPerft(int squaresPerSide, int maxDepth) {
+        Preconditions.checkArgument(maxDepth >= 0);
+
+        board = Othello.newBoard(squaresPerSide);
+        buffers = new int[maxDepth][board.SQUARES_PER_SIDE * board.SQUARES_PER_SIDE];
+        moves = new Board.Move[maxDepth];
+        for (int i = 0; i < maxDepth; ++i) {
+            moves[i] = board.new Move();
+        }
+    }
+
+    /**
+     * Counts the leaves {@code depth} plies from the initial position, with
+     * black to move.
+     *
+     * @param depth the depth, no more than the maximum depth
+     * @return the number of leaves
+     */
+    public long count(int depth) {
+        Preconditions.checkArgument(depth >= 0 && depth <= moves.length);
+        return count(Color.BLACK, depth, 0);
+    }
+
+    private long count(Color color, int depth, int ply) {
+        if (depth == 0) {
+            return 1L;
+        }
+
+        int[] buffer = buffers[ply];
+        int n = board.getMoves(color, buffer);
+        if (n == 0) {
+            return board.hasMove(color.opposite()) ? count(color.opposite(), depth - 1, ply + 1) : 1L;
+        }
+        if (depth == 1) {
+            return n;
+        }
+
+        Board.Move move = moves[ply];
+        long leaves = 0L;
+        for (int i = 0; i < n; ++i) {
+            board.applyMove(board.getSquare(buffer[i]), color, move);
+            leaves += count(color.opposite(), depth - 1, ply + 1);
+            board.undoMove(move);
+        }
+        return leaves;
+    }
+
+    /**
+     * Gets the published leaf count for a depth on the 8x8 board.
+     *
+     * @param depth the depth
+     * @return the count, or {@code -1} if it isn't known
+     */
+    public static long reference(int depth) {
+        return depth >= 0 && depth < REFERENCE.length ? REFERENCE[depth] : -1L;
+    }
+
+    /**
+     * Runs perft from the command line: {@code OthelloPerft [depth [squaresPerSide]]},
+     * with {@value #DEFAULT_DEPTH} plies by default. Prints the count, time and nodes per second at each depth up to
+     * {@code depth}, and exits with status 1 if an 8x8 count doesn't match
+     * its reference value.
+     */
+    public static void main(String... args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH,
+            squaresPerSide = args.length > 1 ? Integer.parseInt(args[1]) : Board.DEFAULT_SQUARES_PER_SIDE;
+        boolean standard = squaresPerSide == Board.DEFAULT_SQUARES_PER_SIDE, ok = true;
+
+        OthelloPerft perft = new OthelloPerft(squaresPerSide, depth);
+        for (int d = 1; d <= depth; ++d) {
+            long start = System.nanoTime(), leaves = perft.count(d);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            String check = "";
+            if (standard && reference(d) >= 0) {
+                boolean match = leaves == reference(d);
+                ok &= match;
+                check = match ? "  ok" : "  MISMATCH, expected " + reference(d);
+            }
+            System.out.printf("perft(%d) = %d in %.3fs, %.0f nodes/s%s%n", d, leaves, seconds, leaves / seconds, check);
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
@@ -10,5 +10,35 @@ public abstract class OthelloPlayer {
         this.color = color;
     }
 
-    public abstract Othello.Board.Square getMove();
+    /**
+     * Chooses the next move, a legal move in the game's position.
+     *
+     * The game only asks a player that has a legal move; a player that must
+     * pass is skipped, so there's no move that stands for a pass. Players
+     * should read the position through {@link Othello#getPosition()}, so
+     * that they can play on any kind of {@link OthelloBoard}.
+     *
+     * @return the index of the square to play, {@code rank * squaresPerSide + file}
+     * @throws IllegalStateException if the player has no legal move
+     */
+    public abstract int getMove();
+
+    /**
+     * Called when the game is reset to start a new game, so that nothing
+     * carries over from the last one. Does nothing by default.
+     *
+     * @see Othello#reset()
+     */
+    public void reset() {
+    }
+
+    /**
+     * Called when the game is done with for good, so that the player can
+     * let go of anything it holds beyond its own fields, such as threads.
+     * Does nothing by default.
+     *
+     * @see Othello#close()
+     */
+    public void close() {
+    }
 }
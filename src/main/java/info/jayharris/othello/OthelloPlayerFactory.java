@@ -0,0 +1,70 @@
+package info.jayharris.othello;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.Random;
+
+/**
+ * Creates a player for a new game.
+ *
+ * Games that need to be reproducible, such as tournament games, hand each
+ * player a {@link Random} seeded for that game; players with no randomness
+ * can ignore it.
+ */
+@FunctionalInterface
+public interface OthelloPlayerFactory {
+
+    /**
+     * Creates a player.
+     *
+     * @param othello the game
+     * @param color the color the player plays
+     * @param random the game's source of randomness
+     * @return the player
+     */
+    OthelloPlayer newPlayer(Othello othello, Othello.Color color, Random random);
+
+    /**
+     * Gets a factory for players of {@code type}, built with its
+     * {@code (Othello, Color, Random)} constructor if it has one, or its
+     * {@code (Othello, Color)} constructor otherwise.
+     *
+     * @param type the player type
+     * @return a factory for {@code type}
+     * @throws IllegalArgumentException if {@code type} is abstract or has
+     *  neither constructor
+     */
+    static OthelloPlayerFactory of(Class<? extends OthelloPlayer> type) {
+        if (Modifier.isAbstract(type.getModifiers())) {
+            throw new IllegalArgumentException(type.getName() + " is abstract");
+        }
+
+        Constructor<? extends OthelloPlayer> seeded, unseeded;
+        try {
+            seeded = type.getConstructor(Othello.class, Othello.Color.class, Random.class);
+            unseeded = null;
+        }
+        catch (NoSuchMethodException e) {
+            seeded = null;
+            try {
+                unseeded = type.getConstructor(Othello.class, Othello.Color.class);
+            }
+            catch (NoSuchMethodException e2) {
+                throw new IllegalArgumentException(type.getName() + " has no (Othello, Color) constructor", e2);
+            }
+        }
+
+        final Constructor<? extends OthelloPlayer> withRandom = seeded, withoutRandom = unseeded;
+        return (othello, color, random) -> {
+            try {
+                return withRandom != null ?
+                        withRandom.newInstance(othello, color, random) :
+                        withoutRandom.newInstance(othello, color);
+            }
+            catch (InvocationTargetException|InstantiationException|IllegalAccessException e) {
+                throw new IllegalStateException("couldn't create a " + type.getName(), e);
+            }
+        };
+    }
+}
@@ -1,7 +1,710 @@
 package info.jayharris.othello;
 
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Board.Square;
+import info.jayharris.othello.Othello.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
- * Created by jay on 7/30/16.
+ * An OthelloPlayer that picks its move by a depth-limited negamax search
+ * with alpha-beta pruning.
+ *
+ * The search deepens iteratively, one ply at a time, trying the previous
+ * iteration's principal variation first. Given a time budget, it keeps
+ * deepening until the budget runs out and plays the best move of the last
+ * depth it finished.
+ *
+ * The search runs on a private copy of the game board, playing and taking
+ * back moves in place with {@link Board#applyMove} and {@link Board#undoMove}.
+ * Results are cached in a transposition table keyed by the board's Zobrist
+ * hash, so positions reached by different move orders are searched once.
+ *
+ * Once few enough squares are empty, the player stops estimating and solves
+ * the rest of the game exactly with an {@link OthelloEndgameSolver}. Given
+ * an {@link OthelloOpeningBook}, it plays book moves without searching for
+ * as long as the game stays in the book.
+ *
+ * With more than one thread, helper threads run the same iterative search
+ * on their own board copies, half of them one ply ahead, and share only the
+ * transposition table ("Lazy SMP"). What they store there speeds up the
+ * main thread, and the move from whichever thread got deepest is played.
  */
-public class OthelloPlayerMinimaxDecision {
+public class OthelloPlayerMinimaxDecision extends OthelloPlayer {
+
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_TABLE_SIZE = 18;    // log2 of the number of entries
+
+    /**
+     * How few empties the player solves exactly by default. A solve has no
+     * deadline at a fixed depth, so this is kept to about what a search to
+     * {@link #DEFAULT_DEPTH} costs, a few thousand nodes.
+     */
+    public static final int DEFAULT_ENDGAME_EMPTIES = 10;
+
+    static final int INFINITY = Integer.MAX_VALUE, WIN = 1 << 20;
+
+    private final int depth;
+    private final long timeBudgetNanos;
+    private final OthelloEvaluator evaluator;
+    private OthelloTranspositionTable transpositionTable;
+    private OthelloOpeningBook openingBook;
+
+    private int endgameEmpties = DEFAULT_ENDGAME_EMPTIES;
+    private int threads = 1;
+    private ExecutorService helpers;
+
+    // one search per thread, the main thread's first, built on the first
+    // move and reused for every move after
+    private Search[] searches = new Search[0];
+    private final AtomicBoolean stop = new AtomicBoolean();
+
+    private long nodesSearched, elapsedNanos;
+    private int depthReached;
+
+    public OthelloPlayerMinimaxDecision(Othello othello, Othello.Color color) {
+        this(othello, color, DEFAULT_DEPTH, new OthelloPositionalEvaluator());
+    }
+
+    /**
+     * Builds a player that searches to a fixed depth.
+     *
+     * @param othello the game
+     * @param color the player's color
+     * @param depth the search depth, in plies
+     * @param evaluator the evaluation at the search horizon
+     */
+    public OthelloPlayerMinimaxDecision(Othello othello, Othello.Color color, int depth, OthelloEvaluator evaluator) {
+        this(othello, color, depth, evaluator, new OthelloTranspositionTable(DEFAULT_TABLE_SIZE));
+    }
+
+    /**
+     * Builds a player that searches to a fixed depth with a transposition
+     * table of the caller's choosing. The default table takes 4 MB, which
+     * adds up where many games are played at once.
+     *
+     * @param othello the game
+     * @param color the player's color
+     * @param depth the search depth, in plies
+     * @param evaluator the evaluation at the search horizon
+     * @param transpositionTable the table, which may be shared with other
+     *  players, or {@code null} to search without one
+     */
+    public OthelloPlayerMinimaxDecision(Othello othello, Othello.Color color, int depth, OthelloEvaluator evaluator,
+                                        OthelloTranspositionTable transpositionTable) {
+        this(othello, color, depth, 0L, evaluator, transpositionTable);
+    }
+
+    /**
+     * Builds a player that searches as deep as it can within
+     * {@code timeBudgetMillis} per move.
+     *
+     * @param othello the game
+     * @param color the player's color
+     * @param evaluator the evaluation at the search horizon
+     * @param timeBudgetMillis the wall-clock time allowed per move
+     */
+    public OthelloPlayerMinimaxDecision(Othello othello, Othello.Color color, OthelloEvaluator evaluator, long timeBudgetMillis) {
+        this(othello, color, Integer.MAX_VALUE, timeBudgetMillis, evaluator,
+                new OthelloTranspositionTable(DEFAULT_TABLE_SIZE));
+        Preconditions.checkArgument(timeBudgetMillis > 0);
+    }
+
+    private OthelloPlayerMinimaxDecision(Othello othello, Othello.Color color, int depth, long timeBudgetMillis,
+                                         OthelloEvaluator evaluator, OthelloTranspositionTable transpositionTable) {
+        super(othello, color);
+
+        Preconditions.checkArgument(depth > 0);
+        this.depth = depth;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.evaluator = Preconditions.checkNotNull(evaluator);
+        this.transpositionTable = transpositionTable;
+    }
+
+    @Override
+    public int getMove() {
+        long start = System.nanoTime();
+        Preconditions.checkState(othello.getPosition().hasMove(color), "no legal move");
+
+        if (transpositionTable != null) {
+            transpositionTable.newSearch();
+        }
+
+        long deadline = timeBudgetNanos == 0L ? 0L : start + timeBudgetNanos;
+
+        int booked = lookUpBook(start);
+        if (booked != OthelloBoard.NO_MOVE) {
+            return booked;
+        }
+        int solved = solveEndgame(start);
+        if (solved != OthelloBoard.NO_MOVE) {
+            return solved;
+        }
+
+        // the search needs squares; a game played on another kind of board
+        // is set up on a Board of the search's own
+        Board root = othello.board != null ? othello.board : Othello.newBoard(othello.getPosition());
+        if (searches.length != threads) {
+            searches = new Search[threads];
+            for (int i = 0; i < threads; ++i) {
+                searches[i] = new Search(root.copy(), evaluator);
+            }
+        }
+        stop.set(false);
+
+        List<Future<Square>> results = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; ++i) {
+            Search helper = searches[i];
+            int firstDepth = 1 + (i & 1);
+
+            helper.board.copyFrom(root);
+            helper.start(transpositionTable, deadline, stop);
+            results.add(helpers.submit(() -> helper.iterate(color, firstDepth, depth)));
+        }
+
+        Search main = searches[0], deepest = main;
+        main.board.copyFrom(root);
+        main.start(transpositionTable, deadline, stop);
+        Square best = main.iterate(color, 1, depth);
+        stop.set(true);
+
+        nodesSearched = main.nodes;
+        for (int i = 0; i < results.size(); ++i) {
+            Search helper = searches[i + 1];
+            Square move;
+            try {
+                move = results.get(i).get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+
+            nodesSearched += helper.nodes;
+            if (move != null && helper.depthReached > deepest.depthReached) {
+                best = move;
+                deepest = helper;
+            }
+        }
+        depthReached = deepest.depthReached;
+        elapsedNanos = System.nanoTime() - start;
+
+        Preconditions.checkNotNull(best);
+        return best.getIndex();
+    }
+
+    /**
+     * Looks the position up in the opening book, if there is one.
+     *
+     * @param start the {@link System#nanoTime()} the move started
+     * @return the book move, or {@link OthelloBoard#NO_MOVE} if the
+     *  position isn't in the book
+     */
+    private int lookUpBook(long start) {
+        OthelloBoard board = othello.getPosition();
+        int n = board.getSquaresPerSide();
+        if (openingBook == null || n != OthelloBitBoard.SQUARES_PER_SIDE) {
+            return OthelloBoard.NO_MOVE;
+        }
+
+        int move = openingBook.lookup(board, color);
+        if (move == OthelloOpeningBook.NO_MOVE || !board.isLegal(move / n, move % n, color)) {
+            return OthelloBoard.NO_MOVE;
+        }
+        nodesSearched = 0L;
+        depthReached = 0;
+        elapsedNanos = System.nanoTime() - start;
+        return move;
+    }
+
+    /**
+     * Solves the game exactly if few enough squares are empty, spending at
+     * most half the time budget.
+     *
+     * @param start the {@link System#nanoTime()} the move started
+     * @return the best move, or {@link OthelloBoard#NO_MOVE} if the
+     *  position wasn't solved
+     */
+    private int solveEndgame(long start) {
+        OthelloBoard board = othello.getPosition();
+        int n = board.getSquaresPerSide(),
+            empties = n * n - board.getDiscCount(Color.BLACK) - board.getDiscCount(Color.WHITE);
+        if (empties > endgameEmpties || n != OthelloBitBoard.SQUARES_PER_SIDE) {
+            return OthelloBoard.NO_MOVE;
+        }
+
+        OthelloEndgameSolver solver = new OthelloEndgameSolver(timeBudgetNanos == 0L ? 0L : start + timeBudgetNanos / 2);
+        try {
+            solver.solve(board, color);
+        }
+        catch (TimeoutException e) {
+            return OthelloBoard.NO_MOVE;
+        }
+        finally {
+            nodesSearched = solver.getNodesSearched();
+            depthReached = empties;
+            elapsedNanos = System.nanoTime() - start;
+        }
+        // the player has a move, so the solver found one
+        return solver.getBestMove();
+    }
+
+    public OthelloOpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    /**
+     * Sets the opening book to play from. A book can be shared between
+     * players.
+     *
+     * @param openingBook the book, or {@code null} not to use one
+     */
+    public void setOpeningBook(OthelloOpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public int getEndgameEmpties() {
+        return endgameEmpties;
+    }
+
+    /**
+     * Sets how few empty squares there must be for the player to solve the
+     * rest of the game exactly instead of searching to a fixed depth.
+     *
+     * @param endgameEmpties the number of empties, or {@code 0} never to solve
+     */
+    public void setEndgameEmpties(int endgameEmpties) {
+        Preconditions.checkArgument(endgameEmpties >= 0);
+        this.endgameEmpties = endgameEmpties;
+    }
+
+    /**
+     * Clears the transposition table, so that a reused player searches a
+     * new game exactly as a new player would.
+     */
+    @Override
+    public void reset() {
+        if (transpositionTable != null) {
+            transpositionTable.clear();
+        }
+    }
+
+    public OthelloTranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * Sets the transposition table to search with, which may be shared with
+     * other players.
+     *
+     * @param transpositionTable the table, or {@code null} to search without one
+     */
+    public void setTranspositionTable(OthelloTranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads to search with. More than one starts a
+     * pool of helper threads, which lasts until the number of threads is
+     * set again or the player is {@linkplain #close() closed}.
+     *
+     * @param threads the number of threads, including the one calling
+     *  {@link #getMove()}
+     */
+    public void setThreads(int threads) {
+        Preconditions.checkArgument(threads > 0);
+
+        if (helpers != null) {
+            helpers.shutdownNow();
+            helpers = null;
+        }
+        if (threads > 1) {
+            helpers = Executors.newFixedThreadPool(threads - 1,
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("othello-search-%d").build());
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Shuts down the helper threads, if there are any. The player can go on
+     * playing, with one thread.
+     */
+    @Override
+    public void close() {
+        setThreads(1);
+    }
+
+    /**
+     * Gets the number of positions visited while choosing the last move,
+     * summed over all threads.
+     *
+     * @return the number of nodes searched
+     */
+    public long getNodesSearched() {
+        return nodesSearched;
+    }
+
+    /**
+     * Gets the wall-clock time spent choosing the last move.
+     *
+     * @return the time, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Gets the deepest iteration completed while choosing the last move.
+     *
+     * @return the depth, in plies, or {@code 0} for a book move
+     */
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    /**
+     * Gets the search speed for the last move.
+     *
+     * @return nodes searched per second
+     */
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodesSearched * 1_000_000_000L / elapsedNanos;
+    }
+
+    /**
+     * Scores a position where neither side can move.
+     *
+     * @param board the board
+     * @param color the color to score for
+     * @return a score beyond the range of any static evaluation, offset by
+     *  the final disc differential
+     */
+    static int terminalScore(Board board, Color color) {
+        int diff = board.getDiscCount(color) - board.getDiscCount(color.opposite());
+        return diff == 0 ? 0 : (diff > 0 ? WIN + diff : -WIN + diff);
+    }
+
+    /**
+     * Thrown to unwind a search whose deadline has passed.
+     */
+    static class SearchTimeout extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        static final SearchTimeout INSTANCE = new SearchTimeout();
+
+        private SearchTimeout() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * An iterative-deepening alpha-beta search, and the state of one
+     * thread's use of it: the board it plays on, and a move list, move
+     * record and principal variation for each ply so that nothing is
+     * allocated per node. The player and {@link OthelloAnalyzer} both search
+     * with it.
+     *
+     * A search is built once and reused position after position; its
+     * buffers grow to the deepest iteration asked of it and no further.
+     */
+    static class Search {
+
+        static final int CHECK_CLOCK_EVERY = 1 << 10;
+
+        final Board board;
+        final OthelloEvaluator evaluator;
+        OthelloTranspositionTable transpositionTable;
+        long deadline;
+        AtomicBoolean stop;
+
+        Square[][] moves = new Square[0][];
+        int[][] keys = new int[0][];
+        Board.Move[] records = new Board.Move[0];
+
+        Square[][] pv = new Square[0][];
+        int[] pvLength = new int[0];
+        Square[] previousPv = new Square[0];
+        int previousPvLength;
+
+        long nodes;
+        int depthReached, score;
+
+        /**
+         * @param board the board to search on, which the search will modify
+         * @param evaluator the evaluation at the search horizon
+         */
+        Search(Board board, OthelloEvaluator evaluator) {
+            this.board = board;
+            this.evaluator = evaluator;
+        }
+
+        /**
+         * Sets up a new search of whatever position is on the board.
+         *
+         * @param transpositionTable the table, or {@code null} to search
+         *  without one
+         * @param deadline the {@link System#nanoTime()} by which to stop, or
+         *  {@code 0} for no deadline
+         * @param stop a flag to stop the search early, shared with the other
+         *  threads searching the same position
+         */
+        void start(OthelloTranspositionTable transpositionTable, long deadline, AtomicBoolean stop) {
+            this.transpositionTable = transpositionTable;
+            this.deadline = deadline;
+            this.stop = stop;
+            previousPvLength = 0;
+            nodes = 0L;
+            depthReached = score = 0;
+        }
+
+        /**
+         * Makes the buffers big enough to search {@code depth} plies. A pass
+         * doesn't use up depth, but two in a row end the game, so that's at
+         * most {@code 2 * depth} moves and passes.
+         *
+         * @param depth the depth
+         */
+        void reserve(int depth) {
+            int plies = 2 * depth + 2, squares = board.SQUARES_PER_SIDE * board.SQUARES_PER_SIDE;
+            if (records.length >= plies) {
+                return;
+            }
+
+            moves = new Square[plies][squares];
+            keys = new int[plies][squares];
+            records = new Board.Move[plies];
+            for (int ply = 0; ply < plies; ++ply) {
+                records[ply] = board.new Move();
+            }
+
+            pv = new Square[plies + 1][plies + 1];
+            pvLength = new int[plies + 1];
+            previousPv = Arrays.copyOf(previousPv, plies + 1);
+        }
+
+        /**
+         * Searches one ply deeper at a time, up to {@code maxDepth} or until
+         * the deadline passes or the search is stopped. The score of the
+         * last completed iteration is left in {@link #score}.
+         *
+         * @param color the color to move, which has a legal move
+         * @param firstDepth the first iteration's depth
+         * @param maxDepth the deepest iteration to try
+         * @return the best move of the last completed iteration, or if not
+         *  even the first iteration finished, the first move in search order
+         */
+        Square iterate(Color color, int firstDepth, int maxDepth) {
+            Square best = null;
+            int empties = board.SQUARES_PER_SIDE * board.SQUARES_PER_SIDE - board.getOccupied().size(), score;
+
+            // one more than the empties reaches the end of every line, where
+            // a full board is scored as a win or loss rather than evaluated
+            for (int depth = Math.min(firstDepth, empties + 1); depth <= Math.min(maxDepth, empties + 1); ++depth) {
+                reserve(depth);
+                try {
+                    score = searchRoot(color, depth);
+                }
+                catch (SearchTimeout timeout) {
+                    unwind();
+                    break;
+                }
+
+                best = pv[0][0];
+                depthReached = depth;
+                this.score = score;
+                previousPvLength = pvLength[0];
+                System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+
+                if (Math.abs(score) >= WIN) {
+                    break;
+                }
+            }
+
+            if (best == null) {
+                // no iteration may have run to size the buffers
+                reserve(0);
+                if (generateMoves(color, 0, false, OthelloTranspositionTable.NO_MOVE) > 0) {
+                    best = moves[0][0];
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Takes back every move still applied after a search was cut off.
+         */
+        void unwind() {
+            for (int ply = records.length - 1; ply >= 0; --ply) {
+                if (records[ply].getSquare() != null) {
+                    board.undoMove(records[ply]);
+                }
+            }
+        }
+
+        int searchRoot(Color color, int depth) {
+            int count = generateMoves(color, 0, true, OthelloTranspositionTable.NO_MOVE), score, alpha = -INFINITY;
+
+            ++nodes;
+            pvLength[0] = 0;
+            for (int i = 0; i < count; ++i) {
+                board.applyMove(moves[0][i], color, records[0]);
+                score = -negamax(color.opposite(), depth - 1, -INFINITY, -alpha, 1,
+                        i == 0 && moves[0][0] == previousPv[0]);
+                board.undoMove(records[0]);
+
+                if (pvLength[0] == 0 || score > alpha) {
+                    alpha = score;
+                    updatePv(0, moves[0][i]);
+                }
+            }
+            return alpha;
+        }
+
+        int negamax(Color toMove, int depth, int alpha, int beta, int ply, boolean followingPv) {
+            if ((++nodes & (CHECK_CLOCK_EVERY - 1)) == 0 &&
+                    (stop.get() || deadline != 0L && System.nanoTime() - deadline > 0)) {
+                throw SearchTimeout.INSTANCE;
+            }
+
+            pvLength[ply] = 0;
+            if (depth == 0) {
+                return evaluator.evaluate(board, toMove);
+            }
+
+            followingPv &= ply < previousPvLength;
+
+            OthelloTranspositionTable table = transpositionTable;
+            long key = 0L, entry;
+            int hashMove = OthelloTranspositionTable.NO_MOVE, originalAlpha = alpha, bestMove = hashMove;
+            if (table != null) {
+                key = board.getHash() ^ OthelloZobrist.sideToMove(toMove);
+                if ((entry = table.probe(key)) != 0L) {
+                    hashMove = OthelloTranspositionTable.move(entry);
+
+                    if (OthelloTranspositionTable.depth(entry) >= depth) {
+                        int stored = OthelloTranspositionTable.score(entry);
+                        switch (OthelloTranspositionTable.bound(entry)) {
+                            case OthelloTranspositionTable.EXACT:
+                                return stored;
+                            case OthelloTranspositionTable.LOWER:
+                                alpha = Math.max(alpha, stored);
+                                break;
+                            case OthelloTranspositionTable.UPPER:
+                                beta = Math.min(beta, stored);
+                                break;
+                        }
+                        if (alpha >= beta) {
+                            return stored;
+                        }
+                    }
+                }
+            }
+
+            int count = generateMoves(toMove, ply, followingPv, hashMove), score;
+            if (count == 0) {
+                if (!board.hasMove(toMove.opposite())) {
+                    return terminalScore(board, toMove);
+                }
+                score = -negamax(toMove.opposite(), depth, -beta, -alpha, ply + 1,
+                        followingPv && previousPv[ply] == null);
+                updatePv(ply, null);
+                return score;
+            }
+
+            for (int i = 0; i < count; ++i) {
+                board.applyMove(moves[ply][i], toMove, records[ply]);
+                score = -negamax(toMove.opposite(), depth - 1, -beta, -alpha, ply + 1,
+                        followingPv && i == 0 && moves[ply][0] == previousPv[ply]);
+                board.undoMove(records[ply]);
+
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = moves[ply][i].getIndex();
+                    if (alpha >= beta) {
+                        break;
+                    }
+                    updatePv(ply, moves[ply][i]);
+                }
+            }
+
+            if (table != null) {
+                table.store(key, depth, alpha,
+                        alpha <= originalAlpha ? OthelloTranspositionTable.UPPER :
+                                (alpha >= beta ? OthelloTranspositionTable.LOWER : OthelloTranspositionTable.EXACT),
+                        bestMove);
+            }
+            return alpha;
+        }
+
+        /**
+         * Makes {@code move} followed by the next ply's variation the
+         * principal variation at {@code ply}.
+         *
+         * @param ply the ply
+         * @param move the move, or {@code null} for a pass
+         */
+        void updatePv(int ply, Square move) {
+            pv[ply][0] = move;
+            System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+            pvLength[ply] = pvLength[ply + 1] + 1;
+        }
+
+        /**
+         * Collects the legal moves for {@code toMove} into {@code moves[ply]},
+         * best-looking squares first.
+         *
+         * @param toMove the color to move
+         * @param ply the ply
+         * @param followingPv whether this node is on the previous iteration's
+         *  principal variation, whose move then goes first
+         * @param hashMove the index of the best move stored in the
+         *  transposition table, which goes next, or {@code NO_MOVE}
+         * @return the number of legal moves
+         */
+        int generateMoves(Color toMove, int ply, boolean followingPv, int hashMove) {
+            Square[] list = moves[ply];
+            int[] key = keys[ply];
+
+            int count = board.getMoves(toMove, key);
+
+            Square pvMove = followingPv && ply < previousPvLength ? previousPv[ply] : null;
+            for (int i = 0; i < count; ++i) {
+                Square square = list[i] = board.squares[key[i]];
+                key[i] = square == pvMove ? INFINITY :
+                        (square.getIndex() == hashMove ? INFINITY - 1 : OthelloPositionalEvaluator.getWeight(
+                                board.SQUARES_PER_SIDE, square.getRank(), square.getFile()));
+            }
+
+            // insertion sort, descending by key; move lists are short
+            for (int i = 1; i < count; ++i) {
+                Square square = list[i];
+                int k = key[i], j = i - 1;
+                for (; j >= 0 && key[j] < k; --j) {
+                    list[j + 1] = list[j];
+                    key[j + 1] = key[j];
+                }
+                list[j + 1] = square;
+                key[j + 1] = k;
+            }
+            return count;
+        }
+    }
 }
@@ -2,17 +2,33 @@ package info.jayharris.othello;
 
 import com.google.common.base.Preconditions;
 
+import java.util.Random;
+
 /**
  * An OthelloPlayer that returns a randomly-selected legal move.
  */
 public class OthelloPlayerRandomMove extends OthelloPlayer {
 
+    private final Random random;
+
     public OthelloPlayerRandomMove(Othello othello, Othello.Color color) {
+        this(othello, color, new Random());
+    }
+
+    /**
+     * @param othello the game
+     * @param color the color to play
+     * @param random the source of randomness, seeded for reproducible games
+     */
+    public OthelloPlayerRandomMove(Othello othello, Othello.Color color, Random random) {
         super(othello, color);
+        this.random = Preconditions.checkNotNull(random);
     }
 
     @Override
-    public Othello.Board.Square getMove() {
-        return Preconditions.checkNotNull(OthelloUtils.getRandomMove(othello, color));
+    public int getMove() {
+        int move = OthelloUtils.getRandomMoveIndex(othello.getPosition(), color, random);
+        Preconditions.checkState(move != OthelloBoard.NO_MOVE, "no legal move");
+        return move;
     }
 }
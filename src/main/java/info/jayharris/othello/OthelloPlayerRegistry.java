@@ -0,0 +1,133 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Named player configurations, each an {@link OthelloPlayerFactory}.
+ *
+ * Registering a factory as a lambda or constructor reference lets games be
+ * set up by name without any reflection, and asking for a name that isn't
+ * registered fails right away instead of falling back to some other player.
+ */
+public class OthelloPlayerRegistry {
+
+    public static final String KEYBOARD = "keyboard", RANDOM = "random",
+                               MINIMAX = "minimax", MINIMAX_PATTERNS = "minimax-patterns";
+
+    /**
+     * The base-2 logarithm of the number of entries in the transposition
+     * table of each minimax opponent from {@link #serverOpponents()}.
+     */
+    public static final int SERVER_TABLE_SIZE = 12;
+
+    private final Map<String, OthelloPlayerFactory> factories = new LinkedHashMap<>();
+
+    /**
+     * Creates an empty registry.
+     */
+    public OthelloPlayerRegistry() {
+    }
+
+    /**
+     * Creates a registry with the standard configurations:
+     * <ul>
+     *   <li>{@value #KEYBOARD}: moves typed in on {@code System.in}</li>
+     *   <li>{@value #RANDOM}: random legal moves</li>
+     *   <li>{@value #MINIMAX}: {@link OthelloPlayerMinimaxDecision} with
+     *       its defaults</li>
+     *   <li>{@value #MINIMAX_PATTERNS}: the same, evaluating with the
+     *       shared {@link OthelloPatternEvaluator#getDefault()}</li>
+     * </ul>
+     *
+     * @return the registry
+     */
+    public static OthelloPlayerRegistry defaults() {
+        OthelloPlayerRegistry registry = new OthelloPlayerRegistry();
+        registry.register(KEYBOARD, (othello, color, random) -> new OthelloPlayerWithKeyboard(othello, color));
+        return registerComputers(registry, OthelloPlayerMinimaxDecision.DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Creates a registry with the standard configurations that need no
+     * one at the keyboard: {@value #RANDOM}, {@value #MINIMAX} and
+     * {@value #MINIMAX_PATTERNS}, as in {@link #defaults()}. Each minimax
+     * player has its own transposition table of the default size, 4 MB.
+     *
+     * @return the registry
+     */
+    public static OthelloPlayerRegistry computers() {
+        return registerComputers(new OthelloPlayerRegistry(), OthelloPlayerMinimaxDecision.DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Creates a registry of the same configurations as {@link #computers()}
+     * for a server, which may have thousands of games going at once. Each
+     * minimax game gets a transposition table of
+     * 2<sup>{@value #SERVER_TABLE_SIZE}</sup> entries, 64 KB rather than
+     * 4 MB, which is plenty for a search to the default depth.
+     *
+     * @return the registry
+     */
+    public static OthelloPlayerRegistry serverOpponents() {
+        return registerComputers(new OthelloPlayerRegistry(), SERVER_TABLE_SIZE);
+    }
+
+    private static OthelloPlayerRegistry registerComputers(OthelloPlayerRegistry registry, int tableSize) {
+        registry.register(RANDOM, OthelloPlayerRandomMove::new);
+        registry.register(MINIMAX, (othello, color, random) -> new OthelloPlayerMinimaxDecision(
+                othello, color, OthelloPlayerMinimaxDecision.DEFAULT_DEPTH, new OthelloPositionalEvaluator(),
+                new OthelloTranspositionTable(tableSize)));
+        registry.register(MINIMAX_PATTERNS, (othello, color, random) -> new OthelloPlayerMinimaxDecision(
+                othello, color, OthelloPlayerMinimaxDecision.DEFAULT_DEPTH, OthelloPatternEvaluator.getDefault(),
+                new OthelloTranspositionTable(tableSize)));
+        return registry;
+    }
+
+    /**
+     * Registers a configuration.
+     *
+     * @param name the name of the configuration
+     * @param factory builds players for it
+     * @return this registry
+     * @throws IllegalArgumentException if {@code name} is already registered
+     */
+    public OthelloPlayerRegistry register(String name, OthelloPlayerFactory factory) {
+        Preconditions.checkNotNull(name);
+        Preconditions.checkNotNull(factory);
+        Preconditions.checkArgument(!factories.containsKey(name), "%s is already registered", name);
+
+        factories.put(name, factory);
+        return this;
+    }
+
+    /**
+     * Gets the factory for a configuration.
+     *
+     * @param name the name of the configuration
+     * @return the factory
+     * @throws IllegalArgumentException if {@code name} isn't registered
+     */
+    public OthelloPlayerFactory get(String name) {
+        OthelloPlayerFactory factory = factories.get(name);
+        Preconditions.checkArgument(factory != null, "no player named %s; known players are %s", name, factories.keySet());
+        return factory;
+    }
+
+    public boolean contains(String name) {
+        return factories.containsKey(name);
+    }
+
+    /**
+     * Gets the registered names, in the order they were registered.
+     *
+     * @return the names
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(factories.keySet());
+    }
+}
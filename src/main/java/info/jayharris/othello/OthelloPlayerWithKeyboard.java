@@ -6,7 +6,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 
 /**
- * An OthelloPlayer that takes moves from keyboard input.
+ * An OthelloPlayer that takes moves from keyboard input, one square such
+ * as {@code f5} per line.
  */
 public class OthelloPlayerWithKeyboard extends OthelloPlayer {
 
@@ -18,19 +19,20 @@ public class OthelloPlayerWithKeyboard extends OthelloPlayer {
     }
     
     @Override
-    public Othello.Board.Square getMove() {
-        System.out.println(othello.board);
+    public int getMove() {
+        System.out.println(othello.getPosition());
 
         System.out.println(String.format("%s's turn. Place disc at: ",
                 color == Othello.Color.WHITE ? "White" : "Black"));
 
-        Othello.Board.Square square = null;
-        while (square == null) {
+        int square = OthelloNotation.NOT_A_SQUARE;
+        while (square == OthelloNotation.NOT_A_SQUARE) {
             try {
-                square = othello.getSquare(reader.readLine());
-            }
-            catch (IllegalArgumentException iax) {
-                // noop
+                String line = reader.readLine();
+                if (line == null) {
+                    throw new IOException("end of input");
+                }
+                square = OthelloNotation.parseSquare(line.trim(), othello.getPosition().getSquaresPerSide());
             }
             catch (IOException iox) {
                 iox.printStackTrace();
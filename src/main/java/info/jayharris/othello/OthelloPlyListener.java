@@ -0,0 +1,18 @@
+package info.jayharris.othello;
+
+/**
+ * Notified of each ply of a game as {@link Othello} plays it.
+ */
+@FunctionalInterface
+public interface OthelloPlyListener {
+
+    /**
+     * Called after {@code color} plays {@code square}, or when {@code color}
+     * has to pass.
+     *
+     * @param color the color that moved
+     * @param square the index of the square played, or
+     *  {@link OthelloBoard#NO_MOVE} for a pass
+     */
+    void ply(Othello.Color color, int square);
+}
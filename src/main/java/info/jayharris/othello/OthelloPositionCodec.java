@@ -0,0 +1,199 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import info.jayharris.othello.Othello.Color;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes positions as text and as packed binary.
+ *
+ * The text form is one character per square, rank by rank from "a1":
+ * {@code b} for black, {@code w} for white and {@code -} for empty, then a
+ * space and {@code b} or {@code w} for the side to move. The common
+ * {@code X}/{@code O}/{@code .} spelling (and {@code *} for black) is read
+ * too. On an 8x8 board the text is {@value #TEXT_LENGTH} characters.
+ *
+ * The packed form of an 8x8 position is its black and white bitboards
+ * ({@link OthelloBitBoard}), as two big-endian longs in
+ * {@value #PACKED_SIZE} bytes. It holds only the discs; the side to move,
+ * when it's needed, travels alongside.
+ *
+ * Nothing here allocates per position beyond the output string, so
+ * positions can be converted in bulk into reused boards and buffers.
+ */
+public final class OthelloPositionCodec {
+
+    public static final int TEXT_LENGTH = 66, PACKED_SIZE = 16;
+
+    static final char BLACK = 'b', WHITE = 'w', EMPTY = '-';
+
+    private OthelloPositionCodec() {
+    }
+
+    /**
+     * Writes the text form of a position.
+     *
+     * @param board the board, of any size
+     * @param toMove the side to move
+     * @param out where to append the text
+     * @return {@code out}
+     */
+    public static StringBuilder format(OthelloBoard board, Color toMove, StringBuilder out) {
+        Preconditions.checkNotNull(toMove);
+
+        int n = board.getSquaresPerSide();
+        for (int rank = 0; rank < n; ++rank) {
+            for (int file = 0; file < n; ++file) {
+                out.append(toChar(board.getColor(rank, file)));
+            }
+        }
+        return out.append(' ').append(toChar(toMove));
+    }
+
+    /**
+     * Gets the text form of a position.
+     *
+     * @param board the board, of any size
+     * @param toMove the side to move
+     * @return the text
+     */
+    public static String format(OthelloBoard board, Color toMove) {
+        int n = board.getSquaresPerSide();
+        return format(board, toMove, new StringBuilder(n * n + 2)).toString();
+    }
+
+    /**
+     * Sets {@code board} up in the position given in text form, checking
+     * each square as it's read.
+     *
+     * An 8x8 board is loaded all at once from the discs gathered along the
+     * way, so if the text turns out not to be a position, the board is left
+     * as it was. A board of another size takes its discs one by one and is
+     * left empty.
+     *
+     * @param text the text form, sized for the board
+     * @param board the board to load the position into; whatever was on
+     *  it is cleared
+     * @return the side to move
+     * @throws IllegalArgumentException if the text isn't a position on a
+     *  board of this size
+     */
+    public static Color parse(CharSequence text, OthelloBoard board) {
+        int n = board.getSquaresPerSide(), squares = n * n;
+        Preconditions.checkArgument(text.length() == squares + 2 && text.charAt(squares) == ' ',
+                "not a position on a %sx%s board: %s", n, n, text);
+
+        Color toMove = toColor(text.charAt(squares + 1));
+        Preconditions.checkArgument(toMove != null, "no side to move: %s", text);
+
+        boolean packed = n == OthelloBitBoard.SQUARES_PER_SIDE;
+        long black = 0L, white = 0L;
+        if (!packed) {
+            board.reset();
+        }
+        try {
+            for (int index = 0; index < squares; ++index) {
+                Color color = toColor(text.charAt(index));
+                if (color == null) {
+                    continue;
+                }
+
+                if (!packed) {
+                    board.setDisc(index, color);
+                }
+                else if (color == Color.BLACK) {
+                    black |= 1L << index;
+                }
+                else {
+                    white |= 1L << index;
+                }
+            }
+        }
+        catch (IllegalArgumentException e) {
+            if (!packed) {
+                board.reset();
+            }
+            throw e;
+        }
+
+        if (packed) {
+            board.load(black, white);
+        }
+        return toMove;
+    }
+
+    /**
+     * Writes the packed form of an 8x8 position at the buffer's position,
+     * advancing it by {@value #PACKED_SIZE} bytes.
+     *
+     * @param board an 8x8 board
+     * @param out the buffer
+     */
+    public static void pack(OthelloBoard board, ByteBuffer out) {
+        OthelloBitBoard bitboard = board instanceof OthelloBitBoard ? (OthelloBitBoard) board : OthelloBitBoard.from(board);
+        out.putLong(bitboard.getBlack()).putLong(bitboard.getWhite());
+    }
+
+    /**
+     * Gets the packed form of an 8x8 position.
+     *
+     * @param board an 8x8 board
+     * @return the {@value #PACKED_SIZE} bytes
+     */
+    public static byte[] pack(OthelloBoard board) {
+        ByteBuffer out = ByteBuffer.allocate(PACKED_SIZE);
+        pack(board, out);
+        return out.array();
+    }
+
+    /**
+     * Sets {@code board} up in the packed position at the buffer's
+     * position, advancing it by {@value #PACKED_SIZE} bytes.
+     *
+     * @param in the buffer
+     * @param board an 8x8 board to load the position into, such as an
+     *  {@link OthelloBitBoard}
+     * @throws IllegalArgumentException if the packed position has a square
+     *  in both colors
+     */
+    public static void unpack(ByteBuffer in, OthelloBoard board) {
+        long black = in.getLong(), white = in.getLong();
+        board.load(black, white);
+    }
+
+    /**
+     * Reads the packed position at the buffer's position into a bitboard,
+     * advancing the buffer by {@value #PACKED_SIZE} bytes.
+     *
+     * @param in the buffer
+     * @return the position
+     * @throws IllegalArgumentException if the packed position has a square
+     *  in both colors
+     */
+    public static OthelloBitBoard unpack(ByteBuffer in) {
+        long black = in.getLong(), white = in.getLong();
+        return new OthelloBitBoard(black, white);
+    }
+
+    private static char toChar(Color color) {
+        return color == null ? EMPTY : (color == Color.BLACK ? BLACK : WHITE);
+    }
+
+    /**
+     * @return the color for {@code c}, or {@code null} for an empty square
+     * @throws IllegalArgumentException if {@code c} isn't a square
+     */
+    private static Color toColor(char c) {
+        switch (c) {
+            case 'b': case 'B': case 'x': case 'X': case '*':
+                return Color.BLACK;
+            case 'w': case 'W': case 'o': case 'O':
+                return Color.WHITE;
+            case '-': case '.':
+                return null;
+            default:
+                throw new IllegalArgumentException("not a square: " + c);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Board.Square;
+import info.jayharris.othello.Othello.Color;
+
+/**
+ * An {@link OthelloEvaluator} that weighs each disc by the kind of square it
+ * sits on, plus a bonus for having fewer frontier discs or more legal moves
+ * than the opponent.
+ *
+ * The frontier counts are kept up by the board as moves are played, so the
+ * default evaluation, which uses them in place of mobility, is one pass over
+ * the squares. Mobility has to be counted afresh in each position, which at
+ * every leaf of a search costs more than the rest of the evaluation put
+ * together, so it's only weighed when asked for.
+ */
+public class OthelloPositionalEvaluator implements OthelloEvaluator {
+
+    public static final int CORNER = 100, X_SQUARE = -50, C_SQUARE = -20, EDGE = 10, INTERIOR = 1;
+
+    // the weight of every square, by board size
+    private static final int[][] WEIGHTS = new int[Board.MAX_SQUARES_PER_SIDE + 1][];
+    static {
+        for (int n = Board.MIN_SQUARES_PER_SIDE; n <= Board.MAX_SQUARES_PER_SIDE; n += 2) {
+            WEIGHTS[n] = new int[n * n];
+            for (int index = 0; index < n * n; ++index) {
+                WEIGHTS[n][index] = getWeight(n, index / n, index % n);
+            }
+        }
+    }
+
+    private final int mobilityWeight, frontierWeight;
+
+    /**
+     * Creates an evaluator that weighs the frontier but not mobility.
+     */
+    public OthelloPositionalEvaluator() {
+        this(0, 5);
+    }
+
+    /**
+     * Creates an evaluator that weighs mobility but not the frontier.
+     *
+     * @param mobilityWeight the worth of each legal move more than the opponent
+     */
+    public OthelloPositionalEvaluator(int mobilityWeight) {
+        this(mobilityWeight, 0);
+    }
+
+    /**
+     * @param mobilityWeight the worth of each legal move more than the opponent
+     * @param frontierWeight the worth of each frontier disc fewer than the opponent
+     */
+    public OthelloPositionalEvaluator(int mobilityWeight, int frontierWeight) {
+        this.mobilityWeight = mobilityWeight;
+        this.frontierWeight = frontierWeight;
+    }
+
+    @Override
+    public int evaluate(Board board, Color color) {
+        int[] weights = WEIGHTS[board.SQUARES_PER_SIDE];
+        Square[] squares = board.squares;
+        Color squareColor;
+
+        int score = 0;
+        for (int index = 0; index < squares.length; ++index) {
+            if ((squareColor = squares[index].getColor()) != null) {
+                score += squareColor == color ? weights[index] : -weights[index];
+            }
+        }
+
+        if (frontierWeight != 0) {
+            score -= frontierWeight * (board.getFrontierCount(color) - board.getFrontierCount(color.opposite()));
+        }
+        if (mobilityWeight != 0) {
+            score += mobilityWeight * (board.getMobility(color) - board.getMobility(color.opposite()));
+        }
+        return score;
+    }
+
+    /**
+     * Gets the weight of a disc on {@code (rank, file)}.
+     *
+     * Corners are worth the most; the squares next to a corner (the "C"
+     * squares along the edge and the "X" square on the diagonal) are worth
+     * the least, since occupying them tends to give the corner away.
+     *
+     * @param squaresPerSide the size of the board
+     * @param rank the rank
+     * @param file the file
+     * @return the weight
+     */
+    public static int getWeight(int squaresPerSide, int rank, int file) {
+        int r = Math.min(rank, squaresPerSide - 1 - rank),
+            f = Math.min(file, squaresPerSide - 1 - file);
+
+        if (r <= 1 && f <= 1) {
+            return r == 0 ? (f == 0 ? CORNER : C_SQUARE) : (f == 0 ? C_SQUARE : X_SQUARE);
+        }
+        return r == 0 || f == 0 ? EDGE : INTERIOR;
+    }
+}
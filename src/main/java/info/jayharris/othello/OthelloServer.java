@@ -0,0 +1,446 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hosts games for many clients at once over the line protocol of
+ * {@link OthelloSession}.
+ *
+ * All the connections are served by one thread, the one that calls
+ * {@link #run()}, waiting on a {@link Selector} for whichever has something
+ * to read or room to write; nothing blocks on a client, so thousands of
+ * games waiting on their clients cost no threads. Computer moves are
+ * worked out on a separate executor and their replies handed back to the
+ * selector thread to write.
+ *
+ * Clients connect over TCP, or in memory over a pair of {@link Pipe}s with
+ * {@link #connect}, which goes through all the same code without a
+ * network.
+ *
+ * Memory goes mostly to games: a game against a minimax opponent from
+ * {@link OthelloPlayerRegistry#serverOpponents()}, the default, holds a
+ * 64 KB transposition table besides its boards and search buffers, well
+ * under 100 KB in all, so a client with the most games a session allows
+ * holds under 100 MB. The {@value OthelloPlayerRegistry#MINIMAX_PATTERNS}
+ * opponents all share the one {@link OthelloPatternEvaluator#getDefault()},
+ * whose 670 KB of weights are paid once per server, not per game. Other
+ * registries may cost more; {@link OthelloPlayerRegistry#computers()}
+ * gives every minimax game a 4 MB table, and a registry that builds a new
+ * {@link OthelloPatternEvaluator} per game adds its weights to every game.
+ *
+ * A client that sends commands faster than it reads the replies is held
+ * back: once {@value #MAX_PENDING} bytes of replies are waiting for it, the
+ * server stops reading from it until it catches up. Replies already on
+ * their way, such as computer moves in its games, still arrive, but there
+ * are at most a few per game, so what a client can make the server hold is
+ * bounded.
+ *
+ * A failure serving one client, such as running out of file descriptors
+ * while accepting it or a bug in its session, is logged and costs only
+ * that client its connection; the server goes on serving the rest.
+ */
+public class OthelloServer implements Runnable, Closeable {
+
+    public static final int DEFAULT_PORT = 8088;
+
+    /**
+     * The longest line a client can send, in bytes; a client that sends a
+     * longer one is hung up on.
+     */
+    static final int MAX_LINE = 256;
+
+    /**
+     * The most bytes of replies a connection holds for a client before the
+     * server stops reading the client's commands; it reads again once half
+     * of them have been written.
+     */
+    static final int MAX_PENDING = 64 * 1024;
+
+    private static final Logger LOG = Logger.getLogger(OthelloServer.class.getName());
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final OthelloPlayerRegistry opponents;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+
+    // work for the selector thread from other threads: registering pipes
+    // and writing replies
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile Thread selectorThread;
+    private volatile boolean open = true;
+
+    /**
+     * Creates a server listening on {@code address}, with opponents from
+     * {@link OthelloPlayerRegistry#serverOpponents()} moving on a daemon thread
+     * per processor, which are shut down with the server.
+     *
+     * @param address the address to listen on; port 0 picks a free port
+     * @throws IOException if the server can't listen there
+     */
+    public OthelloServer(InetSocketAddress address) throws IOException {
+        this(address, OthelloPlayerRegistry.serverOpponents(), Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("othello-server-%d").build()), true);
+    }
+
+    /**
+     * @param address the address to listen on, or {@code null} to take
+     *  only in-memory clients
+     * @param opponents the players clients can ask for by name
+     * @param executor runs the opponents' moves
+     * @throws IOException if the server can't listen there
+     */
+    public OthelloServer(InetSocketAddress address, OthelloPlayerRegistry opponents, Executor executor) throws IOException {
+        this(address, opponents, executor, false);
+    }
+
+    private OthelloServer(InetSocketAddress address, OthelloPlayerRegistry opponents, Executor executor,
+                          boolean ownsExecutor) throws IOException {
+        this.opponents = Preconditions.checkNotNull(opponents);
+        this.executor = Preconditions.checkNotNull(executor);
+        this.ownsExecutor = ownsExecutor;
+
+        selector = Selector.open();
+        if (address == null) {
+            server = null;
+        }
+        else {
+            server = ServerSocketChannel.open();
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        }
+    }
+
+    /**
+     * Gets the address the server is listening on.
+     *
+     * @return the address, or {@code null} if it only takes in-memory clients
+     * @throws IOException if the address can't be read
+     */
+    public SocketAddress getAddress() throws IOException {
+        return server == null ? null : server.getLocalAddress();
+    }
+
+    /**
+     * Connects an in-memory client. The client writes its commands to the
+     * sink of {@code in} and reads the replies from the source of
+     * {@code out}.
+     *
+     * @param in the client's commands
+     * @param out the replies
+     * @throws IOException if the pipes can't be set up
+     */
+    public void connect(Pipe in, Pipe out) throws IOException {
+        in.source().configureBlocking(false);
+        out.sink().configureBlocking(false);
+        inSelectorThread(() -> {
+            try {
+                new Connection(in.source(), out.sink());
+            }
+            catch (IOException iox) {
+                close(in.source());
+                close(out.sink());
+            }
+        });
+    }
+
+    /**
+     * Serves clients until the server is closed.
+     */
+    @Override
+    public void run() {
+        selectorThread = Thread.currentThread();
+        try {
+            while (open) {
+                selector.select();
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    }
+                    catch (RuntimeException e) {
+                        LOG.log(Level.WARNING, "task failed", e);
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                    }
+                    else {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        }
+                        catch (RuntimeException e) {
+                            LOG.log(Level.WARNING, "dropping a client", e);
+                            connection.close();
+                        }
+                    }
+                }
+            }
+        }
+        catch (IOException iox) {
+            throw new UncheckedIOException(iox);
+        }
+        finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+            close(server);
+            close(selector);
+            if (ownsExecutor) {
+                ((ExecutorService) executor).shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Stops the server, hanging up on every client. Returns right away; the
+     * thread in {@link #run()} finishes up and returns.
+     */
+    @Override
+    public void close() {
+        open = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Takes a new client, if one is waiting. A client that can't be taken
+     * is hung up on and the failure logged.
+     */
+    private void accept() {
+        SocketChannel channel = null;
+        try {
+            channel = server.accept();
+            if (channel != null) {
+                channel.configureBlocking(false);
+                new Connection(channel, channel);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.log(Level.WARNING, "can't accept a client", e);
+            close(channel);
+        }
+    }
+
+    /**
+     * Runs {@code task} on the selector thread: now if this is it,
+     * otherwise the next time the selector wakes up.
+     */
+    private void inSelectorThread(Runnable task) {
+        if (Thread.currentThread() == selectorThread) {
+            task.run();
+        }
+        else {
+            tasks.add(task);
+            selector.wakeup();
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        }
+        catch (IOException iox) {
+            // noop
+        }
+    }
+
+    /**
+     * One client: where its commands come in and its replies go out (the
+     * same channel for a socket), the bytes of its next command, and the
+     * replies waiting to be written and how many bytes they come to.
+     */
+    private class Connection {
+
+        final SelectableChannel in, out;
+        final SelectionKey readKey, writeKey;
+        final ByteBuffer line = ByteBuffer.allocate(MAX_LINE);
+        final Queue<ByteBuffer> replies = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicBoolean writing = new AtomicBoolean();
+        final OthelloSession session;
+        boolean quit, paused;
+
+        /**
+         * Registers the connection with the selector; on the selector thread.
+         */
+        Connection(SelectableChannel in, SelectableChannel out) throws IOException {
+            this.in = in;
+            this.out = out;
+            readKey = in.register(selector, SelectionKey.OP_READ, this);
+            writeKey = in == out ? readKey : out.register(selector, 0, this);
+            session = new OthelloSession(opponents, executor, this::send);
+        }
+
+        /**
+         * Queues a reply; on any thread.
+         */
+        void send(String reply) {
+            ByteBuffer bytes = ByteBuffer.wrap((reply + "\n").getBytes(StandardCharsets.US_ASCII));
+            pending.addAndGet(bytes.capacity());
+            replies.add(bytes);
+            if (writing.compareAndSet(false, true)) {
+                inSelectorThread(() -> setInterest(true));
+            }
+        }
+
+        void read() {
+            int read;
+            try {
+                read = ((ReadableByteChannel) in).read(line);
+            }
+            catch (IOException iox) {
+                read = -1;
+            }
+            if (read < 0) {
+                close();
+                return;
+            }
+
+            // carry out each complete command, and keep any partial one
+            line.flip();
+            int start = 0;
+            for (int i = 0; i < line.limit() && !quit; ++i) {
+                if (line.get(i) == '\n') {
+                    int end = i > start && line.get(i - 1) == '\r' ? i - 1 : i;
+                    quit = !session.handle(new String(line.array(), start, end - start, StandardCharsets.US_ASCII));
+                    start = i + 1;
+                }
+            }
+            if (quit) {
+                readKey.interestOps(readKey.interestOps() & ~SelectionKey.OP_READ);
+                return;
+            }
+
+            line.position(start);
+            line.compact();
+            if (!line.hasRemaining()) {
+                send("error line too long");
+                quit = true;
+                readKey.interestOps(readKey.interestOps() & ~SelectionKey.OP_READ);
+            }
+            else if (pending.get() > MAX_PENDING) {
+                paused = true;
+                readKey.interestOps(readKey.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+
+        void write() {
+            try {
+                ByteBuffer reply;
+                while ((reply = replies.peek()) != null) {
+                    ((WritableByteChannel) out).write(reply);
+                    if (reply.hasRemaining()) {
+                        resumeIfCaughtUp();
+                        return;
+                    }
+                    replies.poll();
+                    pending.addAndGet(-reply.capacity());
+                }
+            }
+            catch (IOException iox) {
+                close();
+                return;
+            }
+            resumeIfCaughtUp();
+
+            setInterest(false);
+            writing.set(false);
+            // a reply may have come in after the queue was found empty but
+            // before the flag was cleared, in which case nobody else will
+            // ask for it to be written
+            if (!replies.isEmpty() && writing.compareAndSet(false, true)) {
+                setInterest(true);
+            }
+            else if (quit && replies.isEmpty()) {
+                close();
+            }
+        }
+
+        /**
+         * Reads from the client again, if it was held back and enough of its
+         * replies have been written.
+         */
+        void resumeIfCaughtUp() {
+            if (paused && pending.get() <= MAX_PENDING / 2 && readKey.isValid()) {
+                paused = false;
+                readKey.interestOps(readKey.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+
+        void setInterest(boolean write) {
+            if (!writeKey.isValid()) {
+                return;
+            }
+            int ops = writeKey == readKey && !quit && !paused ? SelectionKey.OP_READ : 0;
+            writeKey.interestOps(write ? ops | SelectionKey.OP_WRITE : ops);
+        }
+
+        void close() {
+            try {
+                session.close();
+            }
+            catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "can't close a client's games", e);
+            }
+            readKey.cancel();
+            writeKey.cancel();
+            OthelloServer.close(in);
+            OthelloServer.close(out);
+        }
+    }
+
+    /**
+     * Runs a server from the command line: {@code OthelloServer [port]}.
+     * Try it with {@code nc localhost 8088} and {@code new random}.
+     */
+    public static void main(String... args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try (OthelloServer server = new OthelloServer(new InetSocketAddress(port))) {
+            System.out.println("listening on " + server.getAddress());
+            server.run();
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One client's side of the line protocol spoken by {@link OthelloServer}:
+ * the games the client is playing against computer opponents, driven one
+ * line at a time, with replies and game events sent to an output.
+ *
+ * The session knows nothing of sockets, so it can be driven directly, and
+ * the server can host any number of them on one thread. Commands, one per
+ * line, words separated by spaces:
+ * <ul>
+ *   <li>{@code new <opponent> [black|white] [seed]}: starts a game against
+ *       a player from the registry, with the client playing black unless
+ *       it says otherwise; replies {@code game <id> <color>}</li>
+ *   <li>{@code move <id> <square>}: plays a move, such as {@code f5}</li>
+ *   <li>{@code board <id>}: replies {@code board <id> <position>}, the
+ *       position in the text form of {@link OthelloPositionCodec}</li>
+ *   <li>{@code close <id>}: abandons a game; replies {@code closed <id>}</li>
+ *   <li>{@code quit}: replies {@code bye}; the server then hangs up</li>
+ * </ul>
+ * As games go on, the session sends {@code ply <id> <color> <square>} for
+ * each ply by either side ({@code pass} for a pass), {@code turn <id>} when
+ * it's the client's move, and {@code over <id> <black discs> <white discs>}
+ * when a game ends. A command that can't be carried out gets
+ * {@code error <message>} and changes nothing. If an opponent fails while
+ * working out its move, the client gets {@code error <id> opponent failed}
+ * and the game is dropped.
+ *
+ * Computer moves are worked out on {@code executor}, so a slow opponent
+ * holds up nothing but its own game, and a game waiting on the client
+ * costs no thread at all. The client can't move in a game, or look at its
+ * board, while the opponent is thinking; a move sent before {@code turn}
+ * comes back with an error and has to be sent again. The output is called from both
+ * the thread driving the session and the executor's threads, so it must
+ * be thread-safe.
+ */
+public class OthelloSession {
+
+    /**
+     * The most games a session can have going at once.
+     */
+    public static final int MAX_GAMES = 1024;
+
+    // the most words of a command that are kept; no command has more
+    private static final int MAX_WORDS = 4;
+
+    private static final Logger LOG = Logger.getLogger(OthelloSession.class.getName());
+
+    private final OthelloPlayerRegistry opponents;
+    private final Executor executor;
+    private final Consumer<String> out;
+    private final Map<Integer, Game> games = new ConcurrentHashMap<>();
+    private int nextId = 1;
+
+    // the command being handled, split by hand into where each word starts
+    // and ends, and how many words there are in all
+    private String line;
+    private final int[] starts = new int[MAX_WORDS], ends = new int[MAX_WORDS];
+    private int wordCount;
+
+    /**
+     * @param opponents the players clients can ask for by name; they
+     *  mustn't block waiting on anything but their own search
+     * @param executor runs the opponents' moves
+     * @param out takes each line sent to the client, without a line
+     *  terminator
+     */
+    public OthelloSession(OthelloPlayerRegistry opponents, Executor executor, Consumer<String> out) {
+        this.opponents = Preconditions.checkNotNull(opponents);
+        this.executor = Preconditions.checkNotNull(executor);
+        this.out = Preconditions.checkNotNull(out);
+    }
+
+    /**
+     * Carries out one command. Not thread-safe; a session takes its lines
+     * from one thread at a time.
+     *
+     * @param line the command, without its line terminator
+     * @return {@code false} if the client has quit, {@code true} otherwise
+     */
+    public boolean handle(String line) {
+        split(line);
+        if (wordCount == 0) {
+            return true;
+        }
+
+        if (is(0, "new")) {
+            newGame();
+        }
+        else if (is(0, "move")) {
+            move();
+        }
+        else if (is(0, "board")) {
+            board();
+        }
+        else if (is(0, "close")) {
+            closeGame();
+        }
+        else if (is(0, "quit")) {
+            out.accept("bye");
+            return false;
+        }
+        else {
+            out.accept("error unknown command " + word(0));
+        }
+        return true;
+    }
+
+    /**
+     * Finds the words of a command, separated by spaces, without a regex
+     * or an array per line.
+     */
+    private void split(String line) {
+        this.line = line;
+        wordCount = 0;
+
+        int length = line.length();
+        for (int i = 0; i < length; ) {
+            if (line.charAt(i) <= ' ') {
+                ++i;
+                continue;
+            }
+
+            int end = i + 1;
+            while (end < length && line.charAt(end) > ' ') {
+                ++end;
+            }
+            if (wordCount < MAX_WORDS) {
+                starts[wordCount] = i;
+                ends[wordCount] = end;
+            }
+            ++wordCount;
+            i = end;
+        }
+    }
+
+    private String word(int i) {
+        return line.substring(starts[i], ends[i]);
+    }
+
+    /**
+     * Determines if word {@code i} is {@code word}, ignoring case.
+     */
+    private boolean is(int i, String word) {
+        return ends[i] - starts[i] == word.length() && line.regionMatches(true, starts[i], word, 0, word.length());
+    }
+
+    /**
+     * Abandons every game, as when the client hangs up.
+     */
+    public void close() {
+        for (Game game : games.values()) {
+            game.close();
+        }
+        games.clear();
+    }
+
+    /**
+     * Gets the number of games going.
+     *
+     * @return the number of games
+     */
+    public int getGameCount() {
+        return games.size();
+    }
+
+    private void newGame() {
+        if (wordCount < 2 || wordCount > 4) {
+            out.accept("error usage: new <opponent> [black|white] [seed]");
+            return;
+        }
+        String name = word(1);
+        if (!opponents.contains(name)) {
+            out.accept("error no opponent named " + name + "; known opponents are " + opponents.getNames());
+            return;
+        }
+
+        Color color = Color.BLACK;
+        if (wordCount > 2) {
+            if (!is(2, "black") && !is(2, "white")) {
+                out.accept("error not a color: " + word(2));
+                return;
+            }
+            color = is(2, "black") ? Color.BLACK : Color.WHITE;
+        }
+
+        Random random;
+        try {
+            random = wordCount > 3 ? new Random(Long.parseLong(word(3))) : new Random();
+        }
+        catch (NumberFormatException nfx) {
+            out.accept("error not a seed: " + word(3));
+            return;
+        }
+        if (games.size() >= MAX_GAMES) {
+            out.accept("error too many games");
+            return;
+        }
+
+        OthelloPlayerFactory client = RemotePlayer::new, opponent = opponents.get(name);
+        Othello othello = color == Color.BLACK ? new Othello(client, opponent, random) : new Othello(opponent, client, random);
+        Game game = new Game(nextId++, othello, (RemotePlayer) (color == Color.BLACK ? othello.black : othello.white));
+        games.put(game.id, game);
+
+        out.accept("game " + game.id + " " + name(color));
+        advance(game);
+    }
+
+    private void move() {
+        Game game = find(3, "move <id> <square>");
+        if (game == null) {
+            return;
+        }
+        if (!isClientsTurn(game)) {
+            out.accept("error " + game.id + " not your turn");
+            return;
+        }
+
+        Board board = game.othello.board;
+        int index = OthelloNotation.parseSquare(line, starts[2], ends[2], board.SQUARES_PER_SIDE);
+        if (index == OthelloNotation.NOT_A_SQUARE
+                || !board.isLegal(index / board.SQUARES_PER_SIDE, index % board.SQUARES_PER_SIDE, game.client.color)) {
+            out.accept("error " + game.id + " illegal move " + word(2));
+            return;
+        }
+
+        game.client.move = index;
+        game.othello.nextPly();
+        advance(game);
+    }
+
+    /**
+     * Determines if the client can move in a game: not before the opponent
+     * has finished and the client has been sent {@code turn}.
+     */
+    private static boolean isClientsTurn(Game game) {
+        synchronized (game) {
+            return !game.thinking && game.othello.getCurrentPlayer() == game.client;
+        }
+    }
+
+    private void board() {
+        Game game = find(2, "board <id>");
+        if (game == null) {
+            return;
+        }
+        if (game.thinking) {
+            out.accept("error " + game.id + " opponent is thinking");
+            return;
+        }
+
+        // the game may have just ended on the executor, and be on its way out
+        OthelloPlayer current = game.othello.getCurrentPlayer();
+        if (current == null) {
+            out.accept("error " + game.id + " game over");
+            return;
+        }
+        out.accept("board " + game.id + " " + OthelloPositionCodec.format(game.othello.board, current.color));
+    }
+
+    private void closeGame() {
+        Game game = find(2, "close <id>");
+        if (game == null) {
+            return;
+        }
+        games.remove(game.id);
+        game.close();
+        out.accept("closed " + game.id);
+    }
+
+    /**
+     * Looks up the game named by a command's second word.
+     *
+     * @return the game, or {@code null} if there's no such game, in which
+     *  case the error has been sent
+     */
+    private Game find(int length, String usage) {
+        if (wordCount != length) {
+            out.accept("error usage: " + usage);
+            return null;
+        }
+
+        Game game = null;
+        try {
+            game = games.get(Integer.parseInt(word(1)));
+        }
+        catch (NumberFormatException nfx) {
+            // reported below
+        }
+        if (game == null) {
+            out.accept("error no game " + word(1));
+        }
+        return game;
+    }
+
+    /**
+     * Moves a game on to the client's next turn: tells the client it's
+     * their move, or has the opponent move first on the executor, or ends
+     * the game.
+     */
+    private void advance(Game game) {
+        OthelloPlayer current = game.othello.getCurrentPlayer();
+        if (current == null) {
+            finish(game);
+        }
+        else if (current == game.client) {
+            out.accept("turn " + game.id);
+        }
+        else {
+            game.thinking = true;
+            executor.execute(() -> think(game));
+        }
+    }
+
+    /**
+     * Has the opponent move until it's the client's turn or the game is
+     * over; on the executor.
+     */
+    private void think(Game game) {
+        Othello othello = game.othello;
+        RuntimeException failure = null;
+        try {
+            while (!game.closed && othello.getCurrentPlayer() != null && othello.getCurrentPlayer() != game.client) {
+                othello.nextPly();
+            }
+        }
+        catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "opponent failed in game " + game.id, e);
+            failure = e;
+        }
+
+        // what comes next is decided here, once, while only this thread
+        // touches the game: once thinking is cleared, a move the client
+        // sent early may be played at any moment
+        OthelloPlayer next = othello.getCurrentPlayer();
+        synchronized (game) {
+            game.thinking = false;
+            if (game.closed) {
+                othello.close();
+            }
+            else if (failure != null) {
+                games.remove(game.id);
+                game.close();
+                out.accept("error " + game.id + " opponent failed");
+            }
+            else if (next == null) {
+                finish(game);
+            }
+            else {
+                out.accept("turn " + game.id);
+            }
+        }
+    }
+
+    private void finish(Game game) {
+        games.remove(game.id);
+        if (game.close()) {
+            Board board = game.othello.board;
+            out.accept("over " + game.id + " " + board.getDiscCount(Color.BLACK) + " " + board.getDiscCount(Color.WHITE));
+        }
+    }
+
+    private static String name(Color color) {
+        return color == Color.BLACK ? "black" : "white";
+    }
+
+    /**
+     * A game and who the client is in it. Between the opponent starting to
+     * think and finishing, only the executor's thread touches the game.
+     * Closing it closes its players, right away or, if the opponent is
+     * thinking, once it stops; the lock on the game keeps the two from
+     * missing each other.
+     */
+    private class Game {
+
+        final int id;
+        final Othello othello;
+        final RemotePlayer client;
+        volatile boolean thinking, closed;
+
+        Game(int id, Othello othello, RemotePlayer client) {
+            this.id = id;
+            this.othello = othello;
+            this.client = client;
+
+            othello.setPlyListener((color, square) -> {
+                if (!closed) {
+                    out.accept("ply " + id + " " + name(color) + " " + (square == OthelloBoard.NO_MOVE ? "pass"
+                            : OthelloNotation.toString(square, othello.board.SQUARES_PER_SIDE)));
+                }
+            });
+        }
+
+        /**
+         * Marks the game over or abandoned, and closes its players unless
+         * the opponent is still thinking.
+         *
+         * @return {@code false} if the game was already closed
+         */
+        synchronized boolean close() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            if (!thinking) {
+                othello.close();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stands in for the client in a game: plays the move the client sent,
+     * which the session has already checked is legal.
+     */
+    static class RemotePlayer extends OthelloPlayer {
+
+        int move = OthelloBoard.NO_MOVE;
+
+        RemotePlayer(Othello othello, Color color, Random random) {
+            super(othello, color);
+        }
+
+        @Override
+        public int getMove() {
+            int square = move;
+            move = OthelloBoard.NO_MOVE;
+            return square;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The eight symmetries of the 8x8 board, applied to bitboards.
+ *
+ * A symmetry is a number from 0 to 7 whose bits say what it does, in this
+ * order: bit 0 reflects the ranks (top to bottom), bit 1 reflects the files
+ * (left to right), and bit 2 then swaps ranks and files (reflects in the
+ * a1-h8 diagonal). Each step is a handful of shifts and masks over the whole
+ * board, so transforming a position costs about as much as generating its
+ * moves.
+ *
+ * The canonical form of a position is its image with the smallest
+ * {@code (own, opp)} pair; positions that are reflections or rotations of
+ * each other have the same canonical form.
+ */
+public final class OthelloSymmetry {
+
+    public static final int IDENTITY = 0, FLIP_RANKS = 1, FLIP_FILES = 2, TRANSPOSE = 4, COUNT = 8;
+
+    private static final int LAST = OthelloBitBoard.SQUARES_PER_SIDE - 1;
+
+    private OthelloSymmetry() {
+    }
+
+    /**
+     * A position in canonical form and the symmetry that took it there.
+     */
+    public static final class Canonical {
+
+        private final OthelloBitBoard board;
+        private final int symmetry;
+
+        private Canonical(OthelloBitBoard board, int symmetry) {
+            this.board = board;
+            this.symmetry = symmetry;
+        }
+
+        /**
+         * @return the canonical position
+         */
+        public OthelloBitBoard getBoard() {
+            return board;
+        }
+
+        /**
+         * @return the symmetry that takes the original position to the
+         *  canonical one; {@link OthelloSymmetry#inverse(int)} takes it back
+         */
+        public int getSymmetry() {
+            return symmetry;
+        }
+    }
+
+    /**
+     * Reduces {@code board} to its canonical form, comparing black's discs
+     * first.
+     *
+     * @param board an 8x8 board
+     * @return the canonical position and the symmetry used
+     */
+    public static Canonical canonicalize(OthelloBoard board) {
+        OthelloBitBoard bitboard = board instanceof OthelloBitBoard ? (OthelloBitBoard) board : OthelloBitBoard.from(board);
+        int symmetry = canonicalSymmetry(bitboard.getBlack(), bitboard.getWhite());
+        return new Canonical(new OthelloBitBoard(
+                transform(bitboard.getBlack(), symmetry), transform(bitboard.getWhite(), symmetry)), symmetry);
+    }
+
+    /**
+     * Picks the symmetry that takes a position to its canonical form, the
+     * image with the smallest {@code (own, opp)} as signed longs. When the
+     * position is symmetric, the lowest such symmetry is picked.
+     *
+     * @param own the discs of one player, usually the player to move
+     * @param opp the discs of the other player
+     * @return the symmetry
+     */
+    public static int canonicalSymmetry(long own, long opp) {
+        int best = IDENTITY;
+        long bestOwn = own, bestOpp = opp;
+
+        for (int symmetry = 1; symmetry < COUNT; ++symmetry) {
+            long o = transform(own, symmetry), p = transform(opp, symmetry);
+            if (o < bestOwn || (o == bestOwn && p < bestOpp)) {
+                best = symmetry;
+                bestOwn = o;
+                bestOpp = p;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Applies a symmetry to a mask of squares.
+     *
+     * @param mask the squares, bit {@code rank * 8 + file} for each
+     * @param symmetry the symmetry
+     * @return the image of the squares
+     */
+    public static long transform(long mask, int symmetry) {
+        Preconditions.checkElementIndex(symmetry, COUNT);
+
+        if ((symmetry & FLIP_RANKS) != 0) {
+            mask = flipRanks(mask);
+        }
+        if ((symmetry & FLIP_FILES) != 0) {
+            mask = flipFiles(mask);
+        }
+        if ((symmetry & TRANSPOSE) != 0) {
+            mask = transpose(mask);
+        }
+        return mask;
+    }
+
+    /**
+     * Applies a symmetry to a square.
+     *
+     * @param square the square index, {@code rank * 8 + file}
+     * @param symmetry the symmetry
+     * @return the index of the image of the square
+     */
+    public static int transform(int square, int symmetry) {
+        Preconditions.checkElementIndex(symmetry, COUNT);
+
+        int rank = square >>> 3, file = square & LAST;
+        if ((symmetry & FLIP_RANKS) != 0) {
+            rank = LAST - rank;
+        }
+        if ((symmetry & FLIP_FILES) != 0) {
+            file = LAST - file;
+        }
+        return (symmetry & TRANSPOSE) != 0 ? (file << 3) | rank : (rank << 3) | file;
+    }
+
+    /**
+     * Gets the symmetry that undoes {@code symmetry}.
+     *
+     * Reflections undo themselves. Undoing a transposed symmetry means
+     * transposing first, which swaps its rank and file reflections.
+     *
+     * @param symmetry the symmetry
+     * @return its inverse
+     */
+    public static int inverse(int symmetry) {
+        Preconditions.checkElementIndex(symmetry, COUNT);
+
+        if ((symmetry & TRANSPOSE) == 0) {
+            return symmetry;
+        }
+        return TRANSPOSE | ((symmetry & FLIP_RANKS) << 1) | ((symmetry & FLIP_FILES) >>> 1);
+    }
+
+    /**
+     * Reflects the ranks: rank {@code r} goes to rank {@code 7 - r}.
+     */
+    static long flipRanks(long mask) {
+        return Long.reverseBytes(mask);
+    }
+
+    /**
+     * Reflects the files: file {@code f} goes to file {@code 7 - f}.
+     */
+    static long flipFiles(long mask) {
+        mask = ((mask >>> 1) & 0x5555555555555555L) | ((mask & 0x5555555555555555L) << 1);
+        mask = ((mask >>> 2) & 0x3333333333333333L) | ((mask & 0x3333333333333333L) << 2);
+        return ((mask >>> 4) & 0x0f0f0f0f0f0f0f0fL) | ((mask & 0x0f0f0f0f0f0f0f0fL) << 4);
+    }
+
+    /**
+     * Swaps ranks and files: {@code (r, f)} goes to {@code (f, r)}.
+     */
+    static long transpose(long mask) {
+        long t;
+        t = 0x0f0f0f0f00000000L & (mask ^ (mask << 28));
+        mask ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (mask ^ (mask << 14));
+        mask ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (mask ^ (mask << 7));
+        mask ^= t ^ (t >>> 7);
+        return mask;
+    }
+}
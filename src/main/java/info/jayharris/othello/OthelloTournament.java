@@ -0,0 +1,317 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import info.jayharris.othello.Othello.Color;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays many headless games between two players across a thread pool and
+ * collects the results.
+ *
+ * The players swap colors every game, with the first player taking black in
+ * the even-numbered games. Each game gets its own {@link Random} seeded from
+ * the tournament seed and the game number, so a tournament's results depend
+ * only on its seed and number of games, not on the number of threads.
+ *
+ * Games are reused from an {@link OthelloGamePool}, so players are built
+ * about once per thread rather than once per game, and are
+ * {@linkplain OthelloPlayer#reset() reset} between games.
+ */
+public class OthelloTournament {
+
+    /** Games handed to a worker at a time. */
+    static final int BATCH_SIZE = 256;
+
+    private final OthelloPlayerFactory first, second;
+    private final OthelloGamePool firstIsBlackPool, secondIsBlackPool;
+    private final long seed;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private OthelloGameWriter writer;
+
+    public OthelloTournament(Class<? extends OthelloPlayer> first, Class<? extends OthelloPlayer> second, long seed) {
+        this(OthelloPlayerFactory.of(first), OthelloPlayerFactory.of(second), seed);
+    }
+
+    public OthelloTournament(OthelloPlayerFactory first, OthelloPlayerFactory second, long seed) {
+        this.first = Preconditions.checkNotNull(first);
+        this.second = Preconditions.checkNotNull(second);
+        this.seed = seed;
+
+        firstIsBlackPool = new OthelloGamePool(first, second);
+        secondIsBlackPool = new OthelloGamePool(second, first);
+    }
+
+    /**
+     * Sets the number of threads to play games on.
+     *
+     * @param threads the number of threads, at least one
+     */
+    public void setThreads(int threads) {
+        Preconditions.checkArgument(threads >= 1);
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets an archive to record every game to. The archive's first player
+     * name is taken to be the first player's, and its second the second's.
+     *
+     * @param writer the archive, or {@code null} not to record games
+     */
+    public void setWriter(OthelloGameWriter writer) {
+        Preconditions.checkArgument(writer == null || writer.getPlayers().size() >= 2);
+        this.writer = writer;
+    }
+
+    /**
+     * Plays {@code games} games.
+     *
+     * @param games the number of games
+     * @return the results, from the first player's point of view
+     * @throws InterruptedException if interrupted while waiting for the games
+     */
+    public Result play(long games) throws InterruptedException {
+        Preconditions.checkArgument(games >= 0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("othello-tournament-%d").build());
+        AtomicLong next = new AtomicLong();
+        List<Callable<Result>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; ++i) {
+            workers.add(() -> {
+                Result result = new Result();
+                long start;
+                while ((start = next.getAndAdd(BATCH_SIZE)) < games) {
+                    for (long game = start; game < Math.min(start + BATCH_SIZE, games); ++game) {
+                        result.add(playGame(game));
+                    }
+                }
+                return result;
+            });
+        }
+
+        try {
+            Result total = new Result();
+            for (Future<Result> result : pool.invokeAll(workers)) {
+                total.add(result.get());
+            }
+            return total;
+        }
+        catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+            firstIsBlackPool.close();
+            secondIsBlackPool.close();
+        }
+    }
+
+    /**
+     * Plays game number {@code game}.
+     *
+     * @param game the game number
+     * @return the final disc differential from the first player's point of view
+     */
+    int playGame(long game) {
+        long gameSeed = seed(seed, game);
+        boolean firstIsBlack = (game & 1) == 0;
+        OthelloGamePool pool = firstIsBlack ? firstIsBlackPool : secondIsBlackPool;
+        Othello othello = pool.acquire(gameSeed);
+
+        OthelloGameWriter.Game record = null;
+        if (writer != null) {
+            record = firstIsBlack ? writer.newGame(0, 1, gameSeed) : writer.newGame(1, 0, gameSeed);
+            othello.setPlyListener(record);
+        }
+
+        othello.play();
+        if (record != null) {
+            try {
+                record.finish(othello.board);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        Color color = firstIsBlack ? Color.BLACK : Color.WHITE;
+        int differential = othello.board.getDiscCount(color) - othello.board.getDiscCount(color.opposite());
+
+        pool.release(othello);
+        return differential;
+    }
+
+    /**
+     * Derives the seed of one game, mixing the bits so that consecutive
+     * games don't get correlated {@link Random}s.
+     */
+    static long seed(long seed, long game) {
+        long z = seed + (game + 1) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Aggregate results of a tournament from the first player's point of
+     * view.
+     */
+    public static class Result {
+
+        private long wins, losses, draws, discDifferential, discDifferentialSquares;
+
+        Result() {
+        }
+
+        private void add(int differential) {
+            if (differential > 0) {
+                ++wins;
+            }
+            else if (differential < 0) {
+                ++losses;
+            }
+            else {
+                ++draws;
+            }
+            discDifferential += differential;
+            discDifferentialSquares += (long) differential * differential;
+        }
+
+        private void add(Result other) {
+            wins += other.wins;
+            losses += other.losses;
+            draws += other.draws;
+            discDifferential += other.discDifferential;
+            discDifferentialSquares += other.discDifferentialSquares;
+        }
+
+        public long getGames() {
+            return wins + losses + draws;
+        }
+
+        public long getWins() {
+            return wins;
+        }
+
+        public long getLosses() {
+            return losses;
+        }
+
+        public long getDraws() {
+            return draws;
+        }
+
+        /**
+         * Gets the first player's score, counting a draw as half a win.
+         *
+         * @return the score as a fraction of the games played
+         */
+        public double getScore() {
+            return getGames() == 0 ? 0.0 : (wins + draws / 2.0) / getGames();
+        }
+
+        /**
+         * Gets the sum of the final disc differentials.
+         *
+         * @return the total disc differential
+         */
+        public long getDiscDifferential() {
+            return discDifferential;
+        }
+
+        public double getMeanDiscDifferential() {
+            return getGames() == 0 ? 0.0 : (double) discDifferential / getGames();
+        }
+
+        /**
+         * Gets the standard error of {@link #getMeanDiscDifferential()}, to
+         * judge whether a difference between players is real.
+         *
+         * @return the standard error
+         */
+        public double getStandardError() {
+            long n = getGames();
+            if (n < 2) {
+                return 0.0;
+            }
+            double mean = getMeanDiscDifferential(),
+                   variance = (discDifferentialSquares - n * mean * mean) / (n - 1);
+            return Math.sqrt(Math.max(variance, 0.0) / n);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("games=%d, +%d -%d =%d, score=%.4f, disc differential=%+.3f +/- %.3f",
+                    getGames(), wins, losses, draws, getScore(), getMeanDiscDifferential(), getStandardError());
+        }
+    }
+
+    /**
+     * Runs a tournament from the command line:
+     * {@code OthelloTournament first second games [threads [seed [archive]]]},
+     * where {@code first} and {@code second} are names from
+     * {@link OthelloPlayerRegistry#defaults()} or player class names, and
+     * {@code archive} is a file to record the games to.
+     */
+    public static void main(String... args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: OthelloTournament first second games [threads [seed [archive]]]");
+            System.exit(1);
+        }
+
+        OthelloPlayerRegistry registry = OthelloPlayerRegistry.defaults();
+        OthelloTournament tournament = new OthelloTournament(
+                player(registry, args[0]),
+                player(registry, args[1]),
+                args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime());
+        if (args.length > 3) {
+            tournament.setThreads(Integer.parseInt(args[3]));
+        }
+
+        OthelloGameWriter writer = null;
+        if (args.length > 5) {
+            writer = new OthelloGameWriter(new FileOutputStream(args[5]), args[0], args[1]);
+            tournament.setWriter(writer);
+        }
+
+        long games = Long.parseLong(args[2]), start = System.nanoTime();
+        Result result = tournament.play(games);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (writer != null) {
+            writer.close();
+        }
+
+        System.out.println(args[0] + " vs. " + args[1] + ": " + result);
+        System.out.printf("%.1f games/s on %d threads%n", games / seconds, tournament.getThreads());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static OthelloPlayerFactory player(OthelloPlayerRegistry registry, String name) throws ClassNotFoundException {
+        if (registry.contains(name)) {
+            return registry.get(name);
+        }
+
+        Class<?> type;
+        try {
+            type = Class.forName(name);
+        }
+        catch (ClassNotFoundException e) {
+            type = Class.forName(OthelloTournament.class.getPackage().getName() + "." + name);
+        }
+        Preconditions.checkArgument(OthelloPlayer.class.isAssignableFrom(type), "%s isn't an OthelloPlayer", name);
+        return OthelloPlayerFactory.of((Class<? extends OthelloPlayer>) type);
+    }
+}
@@ -0,0 +1,140 @@
+package info.jayharris.othello;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size cache of search results keyed by position hash.
+ *
+ * Each entry is two longs: the entry's data, and the data XORed with the
+ * position key. Readers accept an entry only if the two agree with the key
+ * they're probing for, so threads can share a table without locking; an
+ * entry torn by concurrent writers simply reads as a miss.
+ *
+ * When two positions map to the same slot, the result of the deeper search
+ * is kept, unless the stored entry is left over from an earlier search.
+ */
+public class OthelloTranspositionTable {
+
+    /** The stored score is exact. */
+    public static final int EXACT = 0;
+    /** The stored score is a lower bound (the search failed high). */
+    public static final int LOWER = 1;
+    /** The stored score is an upper bound (the search failed low). */
+    public static final int UPPER = 2;
+
+    public static final int NO_MOVE = -1;
+
+    /*
+     * data layout, low to high: score (32 bits), depth (8), bound (2),
+     * move + 1 (12), generation (8), and a bit set in every valid entry
+     */
+    private static final int DEPTH_SHIFT = 32, BOUND_SHIFT = 40, MOVE_SHIFT = 42, GENERATION_SHIFT = 54;
+    private static final long VALID = 1L << 63;
+
+    private final long[] table;
+    private final int mask;
+    private int generation;
+
+    /**
+     * @param log2Entries the base-2 logarithm of the number of entries; each
+     *  entry takes 16 bytes
+     */
+    public OthelloTranspositionTable(int log2Entries) {
+        Preconditions.checkArgument(log2Entries > 0 && log2Entries < 30);
+
+        table = new long[2 << log2Entries];
+        mask = (1 << log2Entries) - 1;
+    }
+
+    /**
+     * Gets the number of entries the table holds.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return mask + 1;
+    }
+
+    /**
+     * Marks the start of a new search, so that entries from earlier searches
+     * give way to new ones regardless of depth.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xff;
+    }
+
+    /**
+     * Looks up the entry for {@code key}.
+     *
+     * @param key the position hash
+     * @return the entry, to be read with {@link #score}, {@link #depth},
+     *  {@link #bound} and {@link #move}, or {@code 0} if there's none
+     */
+    public long probe(long key) {
+        int i = slot(key);
+        long data = table[i + 1];
+        return (table[i] ^ data) == key ? data : 0L;
+    }
+
+    /**
+     * Stores a search result for {@code key}, if it should replace what's in
+     * its slot.
+     *
+     * @param key the position hash
+     * @param depth the depth searched
+     * @param score the score
+     * @param bound one of {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @param move the index of the best move found, or {@link #NO_MOVE}
+     */
+    public void store(long key, int depth, int score, int bound, int move) {
+        int i = slot(key);
+        long old = table[i + 1];
+
+        if ((old & VALID) != 0L && (table[i] ^ old) != key &&
+                generation(old) == generation && depth(old) > depth) {
+            return;
+        }
+
+        long data = VALID |
+                ((long) generation << GENERATION_SHIFT) |
+                ((long) (move + 1) << MOVE_SHIFT) |
+                ((long) bound << BOUND_SHIFT) |
+                ((long) Math.min(depth, 0xff) << DEPTH_SHIFT) |
+                (score & 0xffffffffL);
+        table[i] = key ^ data;
+        table[i + 1] = data;
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xff;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    public static int move(long entry) {
+        return ((int) (entry >>> MOVE_SHIFT) & 0xfff) - 1;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & 0xff;
+    }
+
+    private int slot(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) << 1;
+    }
+}
@@ -5,10 +5,7 @@ import info.jayharris.othello.Othello.*;
 import info.jayharris.othello.Othello.Board.Square;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class OthelloUtils {
 
@@ -31,10 +28,14 @@ public class OthelloUtils {
      * @return a set of legal moves for {@code color} on {@code board}
      */
     public static Set<Square> getAllMoves(Board board, Color color) {
-        return board.getAccessible().
-                stream().
-                filter((square) -> board.isLegal(square, color)).
-                collect(Collectors.toSet());
+        int[] moves = new int[board.SQUARES_PER_SIDE * board.SQUARES_PER_SIDE];
+        int count = board.getMoves(color, moves);
+
+        Set<Square> set = Sets.newHashSetWithExpectedSize(count);
+        for (int i = 0; i < count; ++i) {
+            set.add(board.getSquare(moves[i]));
+        }
+        return set;
     }
     
     public static Board.Square getRandomMove(Othello othello, Color color) {
@@ -51,12 +52,41 @@ public class OthelloUtils {
      *  if no legal move exists
      */
     public static Board.Square getRandomMove(Board board, Color color) {
-        Random random = new Random();
-        Set<Board.Square> moves = getAllMoves(board, color);
-        if (moves.isEmpty()) {
-            return null;
+        return getRandomMove(board, color, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Gets a random legal move for {@code color} on the given board, drawn
+     * from {@code random} so that games can be replayed from a seed.
+     *
+     * @param board the board
+     * @param color the color
+     * @param random the source of randomness
+     * @return a legal move for {@code color} on {@code board}, or {@code null}
+     *  if no legal move exists
+     */
+    public static Board.Square getRandomMove(Board board, Color color, Random random) {
+        int move = getRandomMoveIndex(board, color, random);
+        return move == OthelloBoard.NO_MOVE ? null : board.getSquare(move);
+    }
+
+    /**
+     * Gets a random legal move for {@code color} on any kind of board, drawn
+     * from {@code random}.
+     *
+     * @param board the board
+     * @param color the color
+     * @param random the source of randomness
+     * @return the square index of a legal move for {@code color} on
+     *  {@code board}, or {@link OthelloBoard#NO_MOVE} if no legal move exists
+     */
+    public static int getRandomMoveIndex(OthelloBoard board, Color color, Random random) {
+        int[] moves = new int[board.getSquaresPerSide() * board.getSquaresPerSide()];
+        int count = board.getMoves(color, moves);
+        if (count == 0) {
+            return OthelloBoard.NO_MOVE;
         }
-        return Iterables.get(moves, random.nextInt(moves.size()));
+        return moves[random.nextInt(count)];
     }
 
     /**
@@ -64,76 +94,26 @@ public class OthelloUtils {
      *
      * @param board the board
      * @return a set of stable discs
+     * @see Square#isStable()
      */
     public static Set<Square> getStableDiscs(Board board) {
         Set<Square> stable = Sets.newHashSet();
-        List<Square> upcoming = board.getCorners()
-                .stream()
-                .filter(Square::isOccupied)
-                .collect(Collectors.toList());
-        Set<Square> checking = Sets.newHashSet(upcoming);
-
-        Predicate<Square> pIsStable = new Predicate<Square>() {
-            @Override
-            public boolean test(Square square) {
-                if (!square.isOccupied()) {
-                    return false;
-                }
-
-                if (collectSquaresInAllDirections(square).allMatch(Square::isOccupied)) {
-                    return true;
-                }
-
-                Set<Set<Square>> antiparallelPairs = new HashSet<Set<Square>>() {{
-                    this.add(Sets.newHashSet(square.get_n(), square.get_s()));
-                    this.add(Sets.newHashSet(square.get_ne(), square.get_sw()));
-                    this.add(Sets.newHashSet(square.get_e(), square.get_w()));
-                    this.add(Sets.newHashSet(square.get_se(), square.get_nw()));
-                }};
-                return antiparallelPairs.stream()
-                        .allMatch(set -> set.contains(null) ||
-                                set.stream().anyMatch(neighbor -> (neighbor.getColor() == square.getColor() && stable.contains(neighbor))) ||
-                                set.stream().allMatch(neighbor -> stable.contains(neighbor))
-
-                        );
-            }
-        };
-
-        while (!upcoming.isEmpty()) {
-            Square current = upcoming.remove(0);
-            Othello.cardinals.forEach((dir) -> {
-                Square next = current;
-                while ((next = dir.apply(next)) != null && next.isOccupied() && checking.add(next)) {
-                    upcoming.add(next);
-                }
-            });
-            if (pIsStable.test(current)) {
-                stable.add(current);
+        for (Square square : board.getOccupied()) {
+            if (square.isStable()) {
+                stable.add(square);
             }
         }
         return stable;
     }
 
-    private static Stream<Square> collectSquaresInAllDirections(Square current) {
-        return Othello.directions.stream().flatMap((dir) -> collectSquaresInDirection(current, dir));
-    }
-
-    private static Stream<Square> collectSquaresInDirection(Square current, Function<Square, Square> direction) {
-        Stream.Builder<Square> builder = Stream.builder();
-        while ((current = direction.apply(current)) != null) {
-            builder.accept(current);
-        }
-        return builder.build();
-    }
-
     /**
      * Determines if the game is over.
      *
      * @param board the board
      * @return {@code true} iff the game is over
      */
-    public static boolean isGameOver(Board board) {
-        return board.getAccessible().isEmpty() || !(board.hasMove(Color.BLACK) || board.hasMove(Color.WHITE));
+    public static boolean isGameOver(OthelloBoard board) {
+        return !(board.hasMove(Color.BLACK) || board.hasMove(Color.WHITE));
     }
 
     /**
@@ -142,18 +122,8 @@ public class OthelloUtils {
      * @param board the board
      * @return the color with more pieces on the board, or {@code null} if there's a tie
      */
-    public static Color winner(Board board) {
-        int black = 0;
-        Color color;
-
-        for (Board.Square square : board.getOccupied()) {
-            if ((color = square.getColor()) == Color.BLACK) {
-                ++black;
-            }
-            else if (color == Color.WHITE) {
-                --black;
-            }
-        }
+    public static Color winner(OthelloBoard board) {
+        int black = board.getDiscCount(Color.BLACK) - board.getDiscCount(Color.WHITE);
         return black == 0 ? null : (black > 0 ? Color.BLACK : Color.WHITE);
     }
 }
@@ -0,0 +1,82 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Color;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing of Othello positions.
+ *
+ * A position's hash is the XOR of one key per disc, chosen by the disc's
+ * square and color, so placing, removing or flipping a disc updates the hash
+ * with one or two XORs.
+ */
+public final class OthelloZobrist {
+
+    static final int MAX_SQUARES = Othello.Board.MAX_SQUARES_PER_SIDE * Othello.Board.MAX_SQUARES_PER_SIDE;
+
+    private static final int STANDARD_SQUARES = 64;
+
+    private static final long[][] KEYS = new long[2][MAX_SQUARES];
+    private static final long WHITE_TO_MOVE;
+
+    static {
+        // the keys of the 8x8 squares come first, so that hashes of standard
+        // positions (and the opening books keyed by them) don't depend on
+        // how many larger boards are supported
+        Random random = new Random(0x4f7468656c6c6fL);
+        for (long[] keys : KEYS) {
+            for (int i = 0; i < STANDARD_SQUARES; ++i) {
+                keys[i] = random.nextLong();
+            }
+        }
+        WHITE_TO_MOVE = random.nextLong();
+        for (long[] keys : KEYS) {
+            for (int i = STANDARD_SQUARES; i < keys.length; ++i) {
+                keys[i] = random.nextLong();
+            }
+        }
+    }
+
+    private OthelloZobrist() { }
+
+    /**
+     * Gets the key for a {@code color} disc on square {@code index}.
+     *
+     * @param index the square index, {@code rank * squaresPerSide + file}
+     * @param color the color
+     * @return the key
+     */
+    public static long key(int index, Color color) {
+        return KEYS[color.ordinal()][index];
+    }
+
+    /**
+     * Gets the key to XOR into a position hash when {@code color} is to move,
+     * so that the same discs with different sides to move hash differently.
+     *
+     * @param color the color to move
+     * @return the key
+     */
+    public static long sideToMove(Color color) {
+        return color == Color.WHITE ? WHITE_TO_MOVE : 0L;
+    }
+
+    /**
+     * Hashes a position given as bitboards.
+     *
+     * @param black the black discs
+     * @param white the white discs
+     * @return the hash
+     */
+    public static long hash(long black, long white) {
+        long hash = 0L;
+        for (long b = black; b != 0L; b &= b - 1) {
+            hash ^= KEYS[0][Long.numberOfTrailingZeros(b)];
+        }
+        for (long w = white; w != 0L; w &= w - 1) {
+            hash ^= KEYS[1][Long.numberOfTrailingZeros(w)];
+        }
+        return hash;
+    }
+}
@@ -7,9 +7,8 @@ import org.hamcrest.CoreMatchers;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -99,6 +98,38 @@ public class BoardTest {
         assertFalse(board.isLegal(board.getSquare("h5"), Othello.Color.BLACK));
     }
 
+    @Test
+    public void testGetMoves() throws Exception {
+        String s;
+        Othello.Board board;
+        int[] buffer;
+        Set<Othello.Board.Square> expected, actual;
+        int count;
+
+        s = "    w   " +
+            "   bwww " +
+            "  wbbwwb" +
+            "  wbbww " +
+            "  wwww  " +
+            "        " +
+            "        " +
+            "        ";
+        board = builder.build(s);
+        buffer = new int[board.SQUARES_PER_SIDE * board.SQUARES_PER_SIDE];
+
+        expected = squares(board, "f1", "g1", "h1", "b2", "h2", "b3", "b4", "h4", "b5", "g5", "b6", "c6", "d6", "e6", "f6", "g6");
+        count = board.getMoves(Othello.Color.BLACK, buffer);
+        actual = Arrays.stream(buffer, 0, count).mapToObj(board::getSquare).collect(Collectors.toSet());
+        assertEquals(expected.size(), count);
+        assertEquals(expected, actual);
+        assertEquals(count, board.countMoves(Othello.Color.BLACK));
+
+        board = builder.build("wwwwwwwwwwwwwwwwwwwwwwwwwwwwwwww                                ");
+        assertEquals(0, board.getMoves(Othello.Color.WHITE, buffer));
+        assertEquals(0, board.countMoves(Othello.Color.BLACK));
+        assertFalse(board.hasMove(Othello.Color.BLACK));
+    }
+
     @Test
     public void testGetSquaresToFlip_Square_Color() throws Exception {
         String s;
@@ -124,6 +155,34 @@ public class BoardTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void testGetSquaresToFlip_Square_Color_Buffer() throws Exception {
+        String s;
+        Othello.Board board;
+        Othello.Board.Square[] buffer;
+        Set<Othello.Board.Square> expected;
+        int count;
+
+        s = "       b" +
+            "       b" +
+            " wbbb  b" +
+            " w     b" +
+            "  w     " +
+            "   w    " +
+            "    w   " +
+            "     b  ";
+        board = builder.build(s);
+        buffer = new Othello.Board.Square[board.SQUARES_PER_SIDE * board.SQUARES_PER_SIDE];
+
+        expected = Stream.of("b3", "b4", "c5", "d6", "e7").map(othello::getSquare).collect(Collectors.toSet());
+        count = board.getSquaresToFlip(board.getSquare("a3"), Othello.Color.BLACK, buffer);
+        assertEquals(expected.size(), count);
+        assertEquals(expected, Stream.of(buffer).limit(count).collect(Collectors.toSet()));
+
+        count = board.getSquaresToFlip(board.getSquare("g2"), Othello.Color.WHITE, buffer);
+        assertEquals(0, count);
+    }
+
     @Test
     public void testGetSquaresToFlip_Square_Color_Direction() throws Exception {
         String s;
@@ -180,6 +239,239 @@ public class BoardTest {
         assertNotSame(board, board.copy());
     }
 
+    @Test
+    public void testApplyAndUndoMove() throws Exception {
+        Othello.Board board = othello.board;
+        Random random = new Random(20160730L);
+        Deque<Othello.Board.Move> moves = new ArrayDeque<>();
+        Deque<Othello.Board> snapshots = new ArrayDeque<>();
+
+        assertNull(board.applyMove(board.getSquare("a1"), Othello.Color.BLACK));
+
+        OthelloRandomGame game = new OthelloRandomGame(board, random);
+        while (!game.isOver()) {
+            snapshots.push(board.copy());
+            moves.push(game.apply());
+        }
+
+        while (!moves.isEmpty()) {
+            board.undoMove(moves.pop());
+            Othello.Board expected = snapshots.pop();
+
+            assertThat(board, new OthelloBoardMatcher2(expected));
+            assertEquals(expected.getOccupied(), board.getOccupied());
+            assertEquals(expected.getFrontier(), board.getFrontier());
+            assertEquals(expected.getAccessible(), board.getAccessible());
+        }
+    }
+
+    @Test
+    public void testGetHash() throws Exception {
+        Othello.Board board = othello.board;
+        long initial = board.getHash();
+
+        assertEquals(OthelloZobrist.hash(OthelloBitBoard.initial().getBlack(), OthelloBitBoard.initial().getWhite()), initial);
+
+        Othello.Board.Move first = board.applyMove(board.getSquare("c4"), Othello.Color.BLACK),
+                second = board.applyMove(board.getSquare("c3"), Othello.Color.WHITE);
+        OthelloBitBoard bitboard = OthelloBitBoard.from(board);
+        assertEquals(OthelloZobrist.hash(bitboard.getBlack(), bitboard.getWhite()), board.getHash());
+        assertEquals(board.getHash(), board.copy().getHash());
+
+        board.undoMove(second);
+        board.undoMove(first);
+        assertEquals(initial, board.getHash());
+    }
+
+    @Test
+    public void testCopyIsIndependent() throws Exception {
+        Othello.Board board = othello.board, copy = board.copy();
+
+        assertTrue(board.setPiece(board.getSquare("c4"), Othello.Color.BLACK));
+        assertTrue(board.setPiece(board.getSquare("c3"), Othello.Color.WHITE));
+
+        assertTrue(copy.getAccessible().stream().allMatch((square) -> copy.getSquare(square.getRank(), square.getFile()) == square));
+        assertTrue(copy.isLegal(copy.getSquare("c4"), Othello.Color.BLACK));
+        assertFalse(copy.isLegal(copy.getSquare("b4"), Othello.Color.WHITE));
+    }
+
+    @Test
+    public void testCopyFrom() throws Exception {
+        Othello.Board board = othello.board, reused = Othello.newBoard(board.SQUARES_PER_SIDE);
+        Random random = new Random(20161018L);
+
+        OthelloRandomGame game = new OthelloRandomGame(board, random);
+        while (!game.isOver()) {
+            game.play();
+
+            reused.copyFrom(board);
+            assertThat(reused, new OthelloBoardMatcher2(board));
+            assertEquals(board.getHash(), reused.getHash());
+            assertEquals(board.getMobility(Othello.Color.BLACK), reused.getMobility(Othello.Color.BLACK));
+            assertTrue(reused.getAccessible().stream().allMatch((square) -> reused.getSquare(square.getRank(), square.getFile()) == square));
+        }
+    }
+
+    @Test
+    public void testStableDiscs() throws Exception {
+        Othello.Board board = othello.board;
+        Random random = new Random(20160802L);
+        Deque<Othello.Board.Move> moves = new ArrayDeque<>();
+        Deque<Set<String>> snapshots = new ArrayDeque<>();
+        Map<String, Othello.Color> stable = new HashMap<>();
+
+        OthelloRandomGame game = new OthelloRandomGame(board, random);
+        while (!game.isOver()) {
+            snapshots.push(stableSquares(board));
+            moves.push(game.apply());
+
+            // stable discs stay stable and never change color
+            for (Map.Entry<String, Othello.Color> entry : stable.entrySet()) {
+                assertTrue(board.getSquare(entry.getKey()).isStable());
+                assertEquals(entry.getValue(), board.getSquare(entry.getKey()).getColor());
+            }
+            for (Othello.Board.Square square : OthelloUtils.getStableDiscs(board)) {
+                stable.put(square.getAlgebraicNotation(), square.getColor());
+            }
+
+            // and don't depend on the order the discs were placed in
+            assertEquals(stableSquares(board), stableSquares(builder.build(layout(board))));
+            for (Othello.Color c : Othello.Color.values()) {
+                assertEquals(stable.values().stream().filter(c::equals).count(), board.getStableCount(c));
+            }
+        }
+        assertTrue(board.getStableCount(Othello.Color.BLACK) + board.getStableCount(Othello.Color.WHITE) > 0);
+
+        while (!moves.isEmpty()) {
+            board.undoMove(moves.pop());
+            assertEquals(snapshots.pop(), stableSquares(board));
+        }
+        assertEquals(0, board.getStableCount(Othello.Color.BLACK));
+        assertEquals(0, board.getStableCount(Othello.Color.WHITE));
+    }
+
+    @Test
+    public void testBoardSizes() throws Exception {
+        Random random = new Random(20160805L);
+        OthelloPlayerFactory mock = (o, color, r) -> mock(OthelloPlayer.class);
+
+        for (int size : new int[] { 4, 6, 10, 26 }) {
+            Othello.Board board = new Othello(size, mock, mock, random).board;
+            assertEquals(size, board.getSquaresPerSide());
+            assertEquals(4, board.getOccupied().size());
+            assertEquals(4, board.countMoves(Othello.Color.BLACK));
+            assertEquals(0, board.patterns.length);
+
+            OthelloRandomGame game = new OthelloRandomGame(board, random);
+            while (!game.isOver()) {
+                Othello.Color color = game.toMove();
+
+                // the ray tables agree with walking the neighbors
+                for (Othello.Board.Square square : board.getAccessible()) {
+                    Set<Othello.Board.Square> expected = new HashSet<>();
+                    for (Function<Othello.Board.Square, Othello.Board.Square> direction : Othello.directions) {
+                        expected.addAll(board.getSquaresToFlip(square, color, direction));
+                    }
+                    assertEquals(expected, board.getSquaresToFlip(square, color));
+                    assertEquals(!expected.isEmpty(), board.isLegal(square, color));
+                }
+
+                game.play();
+            }
+            assertTrue(board.getStableCount(Othello.Color.BLACK) + board.getStableCount(Othello.Color.WHITE) > 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddBoardSize() throws Exception {
+        new Othello(7, (o, color, r) -> mock(OthelloPlayer.class), (o, color, r) -> mock(OthelloPlayer.class), new Random());
+    }
+
+    @Test
+    public void testEvaluationFeatures() throws Exception {
+        Othello.Board board = othello.board;
+        Random random = new Random(20160806L);
+        Deque<Othello.Board.Move> moves = new ArrayDeque<>();
+        Deque<List<Integer>> snapshots = new ArrayDeque<>();
+
+        assertEquals(features(board), expectedFeatures(board));
+
+        OthelloRandomGame game = new OthelloRandomGame(board, random);
+        while (!game.isOver()) {
+            snapshots.push(features(board));
+            moves.push(game.apply());
+
+            assertEquals(expectedFeatures(board), features(board));
+            assertEquals(features(board), features(board.copy()));
+        }
+
+        while (!moves.isEmpty()) {
+            board.undoMove(moves.pop());
+            assertEquals(snapshots.pop(), features(board));
+        }
+    }
+
+    /**
+     * The evaluation features of each color, as the board keeps them.
+     */
+    private List<Integer> features(Othello.Board board) {
+        List<Integer> features = new ArrayList<>();
+        for (Othello.Color color : Othello.Color.values()) {
+            features.addAll(Arrays.asList(board.getMobility(color), board.getPotentialMobility(color),
+                    board.getFrontierCount(color), board.getCornerCount(color), board.getXSquareCount(color)));
+        }
+        return features;
+    }
+
+    /**
+     * The evaluation features of each color, worked out from the discs.
+     */
+    private List<Integer> expectedFeatures(Othello.Board board) {
+        int last = board.SQUARES_PER_SIDE - 1;
+        List<Integer> features = new ArrayList<>();
+        for (Othello.Color color : Othello.Color.values()) {
+            int potential = 0, frontier = 0, corners = 0, xSquares = 0;
+            for (Othello.Board.Square square : board.squares) {
+                if (!square.isOccupied()) {
+                    if (square.getOccupiedNeighbors().stream().anyMatch((n) -> n.getColor() == color.opposite())) {
+                        ++potential;
+                    }
+                    continue;
+                }
+                if (square.getColor() != color) {
+                    continue;
+                }
+                if (!square.getUnoccupiedNeighbors().isEmpty()) {
+                    ++frontier;
+                }
+                int r = Math.min(square.getRank(), last - square.getRank()), f = Math.min(square.getFile(), last - square.getFile());
+                if (r == 0 && f == 0) {
+                    ++corners;
+                }
+                if (r == 1 && f == 1) {
+                    ++xSquares;
+                }
+            }
+            features.addAll(Arrays.asList(OthelloUtils.getAllMoves(board, color).size(), potential, frontier, corners, xSquares));
+        }
+        return features;
+    }
+
+    private String layout(Othello.Board board) {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 0; rank < board.SQUARES_PER_SIDE; ++rank) {
+            for (int file = 0; file < board.SQUARES_PER_SIDE; ++file) {
+                Othello.Color color = board.getColor(rank, file);
+                sb.append(color == null ? ' ' : (color == Othello.Color.BLACK ? 'b' : 'w'));
+            }
+        }
+        return sb.toString();
+    }
+
+    private Set<String> stableSquares(Othello.Board board) {
+        return OthelloUtils.getStableDiscs(board).stream().map(Othello.Board.Square::getAlgebraicNotation).collect(Collectors.toSet());
+    }
+
     private Set<Othello.Board.Square> squares(Othello.Board board, String... squares) {
         return Stream.of(squares).map(board::getSquare).collect(Collectors.toSet());
     }
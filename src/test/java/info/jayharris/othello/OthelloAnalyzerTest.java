@@ -0,0 +1,161 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class OthelloAnalyzerTest {
+
+    static final int POSITIONS = 100, DEPTH = 3;
+
+    OthelloEvaluator evaluator = new OthelloPositionalEvaluator();
+    List<Board> boards = new ArrayList<>();
+    Color[] toMove = new Color[POSITIONS];
+    ByteBuffer packed = ByteBuffer.allocate(POSITIONS * OthelloPositionCodec.PACKED_SIZE);
+
+    @Before
+    public void setUp() throws Exception {
+        Random random = new Random(20160808L);
+        while (boards.size() < POSITIONS) {
+            Board board = Othello.newBoard(Board.DEFAULT_SQUARES_PER_SIDE);
+            OthelloRandomGame game = new OthelloRandomGame(board, random);
+            for (int ply = random.nextInt(60); ply > 0 && !game.isOver(); --ply) {
+                game.play();
+            }
+
+            toMove[boards.size()] = game.toMove();
+            boards.add(board);
+            OthelloPositionCodec.pack(board, packed);
+        }
+        packed.flip();
+    }
+
+    @Test
+    public void testAnalyze() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        OthelloAnalyzer.Results results = new OthelloAnalyzer(evaluator, DEPTH, pool).analyze(packed, toMove);
+        pool.shutdown();
+
+        assertEquals(POSITIONS, results.size());
+        assertFalse(packed.hasRemaining());
+
+        for (int i = 0; i < POSITIONS; ++i) {
+            Board board = boards.get(i);
+            Color color = toMove[i];
+
+            long moves = 0L;
+            for (Board.Square square : OthelloUtils.getAllMoves(board, color)) {
+                moves |= 1L << square.getIndex();
+            }
+            assertEquals(moves, results.getMoves(i));
+            assertEquals(evaluator.evaluate(board, color), results.getEvaluation(i));
+            assertEquals(minimax(board, color, DEPTH), results.getScore(i));
+
+            assertEquals(Long.bitCount(moves), results.getMoveCount(i));
+            if (moves == 0L) {
+                assertEquals(OthelloAnalyzer.NO_MOVE, results.getBestMove(i));
+            }
+            else {
+                Board copy = board.copy();
+                assertTrue(copy.setPiece(copy.getSquare(results.getBestMove(i)), color));
+                assertEquals(results.getScore(i), -minimax(copy, color.opposite(), DEPTH - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testBatchMatchesSingle() throws Exception {
+        OthelloAnalyzer analyzer = new OthelloAnalyzer(evaluator, 2);
+        OthelloAnalyzer.Results batch = analyzer.analyze(packed, toMove);
+
+        for (int i = 0; i < POSITIONS; ++i) {
+            OthelloAnalyzer.Results single = analyzer.analyze(boards.get(i), toMove[i]);
+            assertEquals(batch.getMoves(i), single.getMoves(0));
+            assertEquals(batch.getBestMove(i), single.getBestMove(0));
+            assertEquals(batch.getScore(i), single.getScore(0));
+        }
+    }
+
+    @Test
+    public void testMatchesPlayer() throws Exception {
+        Othello othello = new Othello(OthelloPlayerFactory.of(OthelloPlayerRandomMove.class),
+                OthelloPlayerFactory.of(OthelloPlayerRandomMove.class), new Random(1L));
+
+        for (int i = 0; i < POSITIONS; ++i) {
+            if (OthelloUtils.getAllMoves(boards.get(i), toMove[i]).isEmpty()) {
+                continue;
+            }
+
+            // each side searches with a table of its own, starting empty
+            OthelloAnalyzer analyzer = new OthelloAnalyzer(evaluator, DEPTH,
+                    new OthelloTranspositionTable(12), ForkJoinPool.commonPool());
+            OthelloPlayerMinimaxDecision player = new OthelloPlayerMinimaxDecision(othello, toMove[i], DEPTH,
+                    evaluator, new OthelloTranspositionTable(12));
+            player.setEndgameEmpties(0);
+
+            othello.board.copyFrom(boards.get(i));
+            assertEquals(analyzer.analyze(boards.get(i), toMove[i]).getBestMove(0), player.getMove());
+        }
+    }
+
+    @Test
+    public void testDepthZero() throws Exception {
+        OthelloAnalyzer.Results results = new OthelloAnalyzer(evaluator, 0).analyze(packed, toMove);
+        for (int i = 0; i < POSITIONS; ++i) {
+            assertEquals(results.getEvaluation(i), results.getScore(i));
+            assertEquals(results.getMoves(i) == 0L, results.getBestMove(i) == OthelloAnalyzer.NO_MOVE);
+        }
+    }
+
+    @Test
+    public void testWorkersDontHoldAnalyzer() throws Exception {
+        OthelloAnalyzer analyzer = new OthelloAnalyzer(evaluator, 1);
+        analyzer.analyze(boards.get(0), toMove[0]);
+
+        // this thread keeps its worker, but not the analyzer that made it
+        WeakReference<OthelloAnalyzer> ref = new WeakReference<>(analyzer);
+        analyzer = null;
+        for (int i = 0; i < 50 && ref.get() != null; ++i) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooFewPositions() throws Exception {
+        new OthelloAnalyzer(evaluator, 1).analyze(ByteBuffer.allocate(OthelloPositionCodec.PACKED_SIZE), toMove);
+    }
+
+    /**
+     * Plain minimax, without pruning, from the point of view of {@code color}.
+     */
+    private int minimax(Board board, Color color, int depth) {
+        if (depth == 0) {
+            return evaluator.evaluate(board, color);
+        }
+        List<Board.Square> moves = new ArrayList<>(OthelloUtils.getAllMoves(board, color));
+        if (moves.isEmpty()) {
+            return board.hasMove(color.opposite()) ? -minimax(board, color.opposite(), depth) :
+                    OthelloPlayerMinimaxDecision.terminalScore(board, color);
+        }
+
+        int best = Integer.MIN_VALUE;
+        for (Board.Square square : moves) {
+            Board.Move move = board.applyMove(square, color);
+            best = Math.max(best, -minimax(board, color.opposite(), depth - 1));
+            board.undoMove(move);
+        }
+        return best;
+    }
+}
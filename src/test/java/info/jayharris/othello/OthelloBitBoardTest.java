@@ -0,0 +1,165 @@
+package info.jayharris.othello;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class OthelloBitBoardTest {
+
+    Othello othello;
+    OthelloBoardBuilder builder;
+
+    @Before
+    public void setUp() throws Exception {
+        OthelloPlayer black = mock(OthelloPlayer.class), white = mock(OthelloPlayer.class);
+
+        othello = new Othello(black, white);
+        builder = new OthelloBoardBuilder(othello);
+    }
+
+    @Test
+    public void testInitial() throws Exception {
+        OthelloBitBoard bitboard = OthelloBitBoard.initial();
+
+        assertEquals(OthelloBitBoard.from(othello.board), bitboard);
+        assertEquals(mask("c4", "d3", "e6", "f5"), bitboard.getMoves(Othello.Color.BLACK));
+        assertEquals(mask("c5", "d6", "e3", "f4"), bitboard.getMoves(Othello.Color.WHITE));
+    }
+
+    @Test
+    public void testIsLegal() throws Exception {
+        String s;
+        OthelloBitBoard bitboard;
+
+        s = "       b" +
+            "       b" +
+            " wbbb  b" +
+            " w     b" +
+            "  w     " +
+            "   w    " +
+            "    w   " +
+            "     b  ";
+        bitboard = OthelloBitBoard.from(builder.build(s));
+
+        assertTrue(bitboard.isLegal(2, 5, Othello.Color.WHITE));
+        assertFalse(bitboard.isLegal(2, 5, Othello.Color.BLACK));
+
+        assertTrue(bitboard.isLegal(2, 0, Othello.Color.BLACK));
+        assertFalse(bitboard.isLegal(2, 0, Othello.Color.WHITE));
+
+        assertFalse(bitboard.isLegal(4, 7, Othello.Color.WHITE));
+        assertFalse(bitboard.isLegal(4, 7, Othello.Color.BLACK));
+    }
+
+    @Test
+    public void testGetFlips() throws Exception {
+        String s;
+        OthelloBitBoard bitboard;
+
+        s = "       b" +
+            "       b" +
+            " wbbb  b" +
+            " w     b" +
+            "  w     " +
+            "   w    " +
+            "    w   " +
+            "     b  ";
+        bitboard = OthelloBitBoard.from(builder.build(s));
+
+        assertEquals(mask("b3", "b4", "c5", "d6", "e7"), bitboard.getFlips(OthelloBitBoard.index(2, 0), Othello.Color.BLACK));
+        assertEquals(0L, bitboard.getFlips(OthelloBitBoard.index(1, 6), Othello.Color.WHITE));
+    }
+
+    @Test
+    public void testPlayAndUndo() throws Exception {
+        OthelloBitBoard bitboard = OthelloBitBoard.initial(), original = bitboard.copy();
+        int c4 = OthelloBitBoard.index(3, 2);
+
+        long flips = bitboard.play(c4, Othello.Color.BLACK);
+        assertEquals(mask("d4"), flips);
+        assertEquals(4, bitboard.getDiscCount(Othello.Color.BLACK));
+        assertEquals(1, bitboard.getDiscCount(Othello.Color.WHITE));
+
+        bitboard.undo(c4, Othello.Color.BLACK, flips);
+        assertEquals(original, bitboard);
+
+        assertEquals(0L, bitboard.play(OthelloBitBoard.index(0, 0), Othello.Color.BLACK));
+        assertEquals(original, bitboard);
+    }
+
+    @Test
+    public void testAgreesWithBoard() throws Exception {
+        Random random = new Random(20160730L);
+
+        for (int game = 0; game < 20; ++game) {
+            othello = new Othello(mock(OthelloPlayer.class), mock(OthelloPlayer.class));
+            Othello.Board board = othello.board;
+            OthelloBitBoard bitboard = OthelloBitBoard.initial();
+            OthelloRandomGame played = new OthelloRandomGame(board, random);
+
+            while (!played.isOver()) {
+                for (Othello.Color color : Othello.Color.values()) {
+                    long expected = 0L;
+                    for (Othello.Board.Square square : OthelloUtils.getAllMoves(board, color)) {
+                        expected |= OthelloBitBoard.bit(square.getRank(), square.getFile());
+                    }
+                    assertEquals(expected, bitboard.getMoves(color));
+                    assertEquals(board.hasMove(color), bitboard.hasMove(color));
+                }
+
+                Othello.Color color = played.toMove();
+                Othello.Board.Square move = played.pick();
+                played.play(move);
+                assertTrue(bitboard.setPiece(move.getRank(), move.getFile(), color));
+                assertEquals(OthelloBitBoard.from(board), bitboard);
+            }
+            assertTrue(OthelloUtils.isGameOver(bitboard));
+            assertEquals(OthelloUtils.winner(board), OthelloUtils.winner(bitboard));
+        }
+    }
+
+    @Test
+    public void testPlayGame() throws Exception {
+        OthelloBitBoard bitboard = new OthelloBitBoard();
+        Othello game = new Othello(bitboard,
+                (othello, color, random) -> new OthelloPlayerMinimaxDecision(othello, color, 2, new OthelloPositionalEvaluator()),
+                OthelloPlayerRandomMove::new, new Random(20160811L));
+        assertNull(game.board);
+        assertEquals(OthelloBitBoard.initial(), bitboard);
+
+        // replay the game on squares as it goes, checking every move
+        Othello.Board board = othello.board;
+        game.setPlyListener((color, square) -> {
+            if (square != OthelloBoard.NO_MOVE) {
+                assertTrue(board.setPiece(board.getSquare(square), color));
+            }
+            else {
+                assertFalse(board.hasMove(color));
+            }
+            assertEquals(OthelloBitBoard.from(board), bitboard);
+        });
+        game.play();
+
+        assertTrue(OthelloUtils.isGameOver(bitboard));
+        assertNull(game.getCurrentPlayer());
+        assertEquals(64, bitboard.getDiscCount(Othello.Color.BLACK) + bitboard.getDiscCount(Othello.Color.WHITE)
+                + Long.bitCount(bitboard.getEmpty()));
+
+        game.reset();
+        assertEquals(OthelloBitBoard.initial(), bitboard);
+    }
+
+    private long mask(String... squares) {
+        return Stream.of(squares)
+                .map(othello::getSquare)
+                .collect(Collectors.reducing(0L,
+                        (square) -> OthelloBitBoard.bit(square.getRank(), square.getFile()),
+                        (a, b) -> a | b));
+    }
+}
@@ -1,12 +1,10 @@
 package info.jayharris.othello;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 
 class OthelloBoardBuilder {
 
     static Field boardField;
-    static Method boardForceSetPieceMethod;
 
     public Othello othello;
 
@@ -16,15 +14,11 @@ class OthelloBoardBuilder {
         try {
             boardField = Othello.class.getDeclaredField("board");
             boardField.setAccessible(true);
-
-            boardForceSetPieceMethod = Othello.Board.class.getDeclaredMethod(
-                    "forceSetPiece", Othello.Board.Square.class, Othello.Color.class);
-            boardForceSetPieceMethod.setAccessible(true);
-        } catch (NoSuchMethodException|NoSuchFieldException e) { }
+        } catch (NoSuchFieldException e) { }
     }
 
     public Othello.Board build(String str) throws Exception {
-        Othello.Board board = othello.new Board();
+        Othello.Board board = new Othello.Board();
 
         int rank = 0, file = 0;
         for (char c : str.toCharArray()) {
@@ -36,7 +30,7 @@ class OthelloBoardBuilder {
             }
 
             if (color != null) {
-                boardForceSetPieceMethod.invoke(board, board.getSquare(rank, file), color);
+                board.setDisc(board.getSquare(rank, file).getIndex(), color);
             }
 
             file = (file + 1) % board.SQUARES_PER_SIDE;
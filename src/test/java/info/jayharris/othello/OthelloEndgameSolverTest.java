@@ -0,0 +1,98 @@
+package info.jayharris.othello;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNotNull;
+import static org.mockito.Mockito.mock;
+
+public class OthelloEndgameSolverTest {
+
+    @Test
+    public void testSolve() throws Exception {
+        Random random = new Random(20160730L);
+        OthelloEndgameSolver solver = new OthelloEndgameSolver();
+
+        for (int game = 0; game < 10; ++game) {
+            Othello othello = new Othello(mock(OthelloPlayer.class), mock(OthelloPlayer.class));
+            Othello.Board board = othello.board;
+            Othello.Color color = playRandomly(board, 8 + game % 3, random);
+            if (color == null) {
+                continue;
+            }
+
+            int score = solver.solve(board, color);
+            assertEquals(solve(board, color), score);
+
+            // the best move achieves the score
+            Othello.Board.Square best = board.getSquare(solver.getBestMove());
+            assertTrue(board.setPiece(best, color));
+            assertEquals(score, board.hasMove(color.opposite()) ?
+                    -solve(board, color.opposite()) : solve(board, color));
+        }
+    }
+
+    @Test
+    public void testSolveFinishedGame() throws Exception {
+        OthelloEndgameSolver solver = new OthelloEndgameSolver();
+        OthelloBitBoard bitboard = new OthelloBitBoard(0xffffffffL, 0xffffffffL << 32);
+
+        assertEquals(0, solver.solve(bitboard, Othello.Color.BLACK));
+        assertEquals(OthelloEndgameSolver.NO_MOVE, solver.getBestMove());
+    }
+
+    @Test
+    public void testPlayerSolvesEndgame() throws Exception {
+        Random random = new Random(20160731L);
+        Othello othello = new Othello(mock(OthelloPlayer.class), mock(OthelloPlayer.class));
+        Othello.Color color = playRandomly(othello.board, 10, random);
+        assumeNotNull(color);
+
+        OthelloPlayerMinimaxDecision player = new OthelloPlayerMinimaxDecision(
+                othello, color, 1, OthelloEvaluator.discDifference());
+        player.setEndgameEmpties(10);
+
+        int score = new OthelloEndgameSolver().solve(othello.board, color);
+        Othello.Board.Square move = othello.board.getSquare(player.getMove());
+        assertEquals(10, player.getDepthReached());
+
+        assertTrue(othello.board.setPiece(move, color));
+        assertEquals(score, othello.board.hasMove(color.opposite()) ?
+                -solve(othello.board, color.opposite()) : solve(othello.board, color));
+    }
+
+    /**
+     * Plays random moves until {@code empties} squares are left.
+     *
+     * @return the color to move, or {@code null} if the game ended first
+     */
+    private static Othello.Color playRandomly(Othello.Board board, int empties, Random random) {
+        OthelloRandomGame game = new OthelloRandomGame(board, random);
+        while (64 - board.getOccupied().size() > empties && !game.isOver()) {
+            game.play();
+        }
+        return game.isOver() ? null : game.toMove();
+    }
+
+    /**
+     * Plain negamax to the end of the game, for reference.
+     */
+    private static int solve(Othello.Board board, Othello.Color color) {
+        if (!board.hasMove(color)) {
+            if (!board.hasMove(color.opposite())) {
+                return board.getDiscCount(color) - board.getDiscCount(color.opposite());
+            }
+            return -solve(board, color.opposite());
+        }
+
+        int best = Integer.MIN_VALUE;
+        for (Othello.Board.Square square : OthelloUtils.getAllMoves(board, color)) {
+            Othello.Board.Move move = board.applyMove(square, color);
+            best = Math.max(best, -solve(board, color.opposite()));
+            board.undoMove(move);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,98 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OthelloGamePoolTest {
+
+    private final OthelloPlayerFactory random = OthelloPlayerFactory.of(OthelloPlayerRandomMove.class);
+
+    @Test
+    public void testReuse() throws Exception {
+        OthelloGamePool pool = new OthelloGamePool(random, random);
+
+        Othello othello = pool.acquire(1L);
+        assertEquals(0, pool.getIdle());
+        othello.play();
+        pool.release(othello);
+        assertEquals(1, pool.getIdle());
+
+        assertSame(othello, pool.acquire(2L));
+        assertEquals(0, pool.getIdle());
+        assertNotSame(othello, pool.acquire(3L));
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        List<OthelloPlayer> closed = new ArrayList<>();
+        OthelloPlayerFactory closing = (othello, color, random) -> new OthelloPlayerRandomMove(othello, color, random) {
+            @Override
+            public void close() {
+                closed.add(this);
+            }
+        };
+        OthelloGamePool pool = new OthelloGamePool(closing, closing);
+
+        Othello othello = pool.acquire(1L);
+        pool.release(othello);
+        pool.close();
+        assertEquals(0, pool.getIdle());
+        assertEquals(2, closed.size());
+        assertTrue(closed.contains(othello.black) && closed.contains(othello.white));
+    }
+
+    @Test
+    public void testResetBoard() throws Exception {
+        OthelloGamePool pool = new OthelloGamePool(random, random);
+        Othello othello = pool.acquire(20160803L);
+        othello.play();
+        pool.release(othello);
+
+        othello = pool.acquire(20160804L);
+        Board expected = new Othello(random, random, new Random(0L)).board, actual = othello.board;
+
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.getOccupied(), actual.getOccupied());
+        assertEquals(expected.getFrontier(), actual.getFrontier());
+        assertEquals(expected.getAccessible(), actual.getAccessible());
+        assertEquals(expected.getHash(), actual.getHash());
+        assertArrayEquals(expected.patterns, actual.patterns);
+        for (Color color : Color.values()) {
+            assertEquals(expected.getStableCount(color), actual.getStableCount(color));
+            assertEquals(OthelloUtils.getAllMoves(expected, color), OthelloUtils.getAllMoves(actual, color));
+        }
+    }
+
+    @Test
+    public void testResetGameMatchesNewGame() throws Exception {
+        OthelloGamePool pool = new OthelloGamePool(random, random);
+
+        for (long seed = 0L; seed < 20L; ++seed) {
+            Othello othello = pool.acquire(seed);
+            List<String> actual = record(othello);
+            pool.release(othello);
+
+            assertEquals(record(new Othello(random, random, new Random(seed))), actual);
+        }
+        assertEquals(1, pool.getIdle());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testResetWithoutRandom() throws Exception {
+        new Othello((OthelloPlayer) null, null).reset(0L);
+    }
+
+    private List<String> record(Othello othello) {
+        List<String> plies = new ArrayList<>();
+        othello.setPlyListener((color, square) -> plies.add(color + " " + square));
+        othello.play();
+        return plies;
+    }
+}
@@ -0,0 +1,166 @@
+package info.jayharris.othello;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OthelloGameWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteTranscript() throws Exception {
+        Path played = folder.newFile().toPath(), imported = folder.newFile().toPath();
+        List<String> transcripts = new ArrayList<>();
+
+        try (OthelloGameWriter writer = new OthelloGameWriter(Files.newOutputStream(played), "random")) {
+            for (int game = 0; game < 20; ++game) {
+                Othello othello = new Othello(OthelloPlayerFactory.of(OthelloPlayerRandomMove.class),
+                        OthelloPlayerFactory.of(OthelloPlayerRandomMove.class), new Random(game));
+                OthelloGameWriter.Game record = writer.newGame(0, 0, game);
+                StringBuilder transcript = new StringBuilder();
+                othello.setPlyListener((color, square) -> {
+                    record.ply(color, square);
+                    if (square != OthelloBoard.NO_MOVE) {
+                        transcript.append(OthelloNotation.toString(square, othello.board.SQUARES_PER_SIDE));
+                    }
+                });
+                othello.play();
+                record.finish(othello.board);
+                transcripts.add(transcript.toString());
+            }
+        }
+
+        try (OthelloGameWriter writer = new OthelloGameWriter(Files.newOutputStream(imported), "random")) {
+            for (int game = 0; game < transcripts.size(); ++game) {
+                writer.writeTranscript(transcripts.get(game), 0, 0, game);
+            }
+        }
+
+        assertArrayEquals(Files.readAllBytes(played), Files.readAllBytes(imported));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteIllegalTranscript() throws Exception {
+        try (OthelloGameWriter writer = new OthelloGameWriter(new ByteArrayOutputStream(), "random")) {
+            writer.writeTranscript("f5f5", 0, 0, 0L);
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Path path = folder.newFile().toPath();
+        List<OthelloBitBoard> finals = new ArrayList<>();
+        List<Long> seeds = new ArrayList<>();
+
+        try (OthelloGameWriter writer = new OthelloGameWriter(Files.newOutputStream(path), "random", "other")) {
+            for (int game = 0; game < 20; ++game) {
+                Random random = new Random(game);
+                Othello othello = new Othello(OthelloPlayerFactory.of(OthelloPlayerRandomMove.class),
+                        OthelloPlayerFactory.of(OthelloPlayerRandomMove.class), random);
+                OthelloGameWriter.Game record = writer.newGame(game % 2, 1 - game % 2, game * 31L);
+                othello.setPlyListener(record);
+                othello.play();
+                record.finish(othello.board);
+
+                finals.add(OthelloBitBoard.from(othello.board));
+                seeds.add(game * 31L);
+            }
+        }
+
+        // a small window makes the reader remap several times
+        try (OthelloGameReader reader = new OthelloGameReader(path, 512)) {
+            assertEquals(2, reader.getPlayers().size());
+            assertEquals("other", reader.getPlayers().get(1));
+
+            int game = 0;
+            while (reader.next()) {
+                assertEquals(game % 2 == 0 ? "random" : "other", reader.getBlackPlayer());
+                assertEquals(game % 2 == 0 ? "other" : "random", reader.getWhitePlayer());
+                assertEquals((long) seeds.get(game), reader.getSeed());
+
+                OthelloBitBoard board = reader.replay(reader.getPlyCount());
+                assertEquals(finals.get(game), board);
+                assertEquals(Long.bitCount(board.getBlack()), reader.getDiscCount(Othello.Color.BLACK));
+                assertEquals(Long.bitCount(board.getWhite()), reader.getDiscCount(Othello.Color.WHITE));
+                assertEquals(OthelloUtils.winner(board), reader.getWinner());
+                ++game;
+            }
+            assertEquals(20, game);
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testPass() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OthelloGameWriter writer = new OthelloGameWriter(out, "a");
+        OthelloGameWriter.Game record = writer.newGame(0, 0, 0L);
+
+        Othello othello = new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class);
+        record.ply(Othello.Color.BLACK, othello.getSquare("d3").getIndex());
+        record.ply(Othello.Color.WHITE, OthelloBoard.NO_MOVE);
+        record.finish(othello.board);
+        writer.close();
+
+        byte[] bytes = out.toByteArray();
+        int game = bytes.length - OthelloGameWriter.GAME_HEADER_SIZE - 2;
+        assertEquals(2, bytes[game + 12]);
+        assertEquals(othello.getSquare("d3").getIndex(), bytes[game + 13]);
+        assertEquals(OthelloGameWriter.PASS, bytes[game + 14]);
+    }
+
+    @Test
+    public void testTournamentRecordsGames() throws Exception {
+        Path path = folder.newFile().toPath();
+        OthelloTournament tournament = new OthelloTournament(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class, 1L);
+        tournament.setThreads(2);
+
+        OthelloTournament.Result result;
+        try (OthelloGameWriter writer = new OthelloGameWriter(Files.newOutputStream(path), "first", "second")) {
+            tournament.setWriter(writer);
+            result = tournament.play(600);
+        }
+
+        long games = 0, firstDiscs = 0;
+        try (OthelloGameReader reader = new OthelloGameReader(path)) {
+            while (reader.next()) {
+                ++games;
+                int black = reader.getDiscCount(Othello.Color.BLACK), white = reader.getDiscCount(Othello.Color.WHITE);
+                firstDiscs += reader.getBlackPlayer().equals("first") ? black - white : white - black;
+            }
+        }
+        assertEquals(600, games);
+        assertEquals(result.getDiscDifferential(), firstDiscs);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedArchive() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OthelloGameWriter writer = new OthelloGameWriter(out, "a");
+        Othello othello = new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class);
+        OthelloGameWriter.Game record = writer.newGame(0, 0, 0L);
+        othello.setPlyListener(record);
+        othello.play();
+        record.finish(othello.board);
+        writer.close();
+
+        Path path = folder.newFile().toPath();
+        byte[] bytes = out.toByteArray();
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        try (OthelloGameReader reader = new OthelloGameReader(path)) {
+            reader.next();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package info.jayharris.othello;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OthelloNotationTest {
+
+    @Test
+    public void testParseSquare() throws Exception {
+        assertEquals(0, OthelloNotation.parseSquare("a1", 8));
+        assertEquals(4 * 8 + 5, OthelloNotation.parseSquare("f5", 8));
+        assertEquals(4 * 8 + 5, OthelloNotation.parseSquare("F5", 8));
+        assertEquals(63, OthelloNotation.parseSquare("h8", 8));
+        assertEquals(9 * 10 + 9, OthelloNotation.parseSquare("j10", 10));
+        assertEquals(25 * 26 + 25, OthelloNotation.parseSquare("z26", 26));
+
+        for (String bad : new String[] { "", "f", "5f", "i1", "a0", "a9", "a01", "f5x", " f5", "a10" }) {
+            assertEquals(bad, OthelloNotation.NOT_A_SQUARE, OthelloNotation.parseSquare(bad, 8));
+        }
+    }
+
+    @Test
+    public void testToString() throws Exception {
+        assertEquals("f5", OthelloNotation.toString(4 * 8 + 5, 8));
+        for (int n = 4; n <= 26; n += 2) {
+            for (int index = 0; index < n * n; ++index) {
+                assertEquals(index, OthelloNotation.parseSquare(OthelloNotation.toString(index, n), n));
+            }
+        }
+    }
+
+    @Test
+    public void testParseMoves() throws Exception {
+        int[] moves = new int[60];
+        assertEquals(3, OthelloNotation.parseMoves("f5d6c3", 8, moves));
+        assertEquals("f5d6c3", OthelloNotation.toString(moves, 3, 8, new StringBuilder()).toString());
+
+        assertEquals(4, OthelloNotation.parseMoves(" f5, D6 c3\td3 ", 8, moves));
+        assertEquals("f5d6c3d3", OthelloNotation.toString(moves, 4, 8, new StringBuilder()).toString());
+
+        assertEquals(2, OthelloNotation.parseMoves("j10a1", 10, moves));
+        assertEquals(99, moves[0]);
+        assertEquals(0, moves[1]);
+
+        assertEquals(0, OthelloNotation.parseMoves("", 8, moves));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMovesBadSquare() throws Exception {
+        OthelloNotation.parseMoves("f5d6q3", 8, new int[60]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMovesTooMany() throws Exception {
+        OthelloNotation.parseMoves("f5d6c3", 8, new int[2]);
+    }
+}
@@ -0,0 +1,107 @@
+package info.jayharris.othello;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class OthelloOpeningBookTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBuildAndLookup() throws Exception {
+        Path archive = record(200, 1L), path = folder.newFile().toPath();
+
+        OthelloOpeningBookWriter writer = new OthelloOpeningBookWriter(6);
+        try (OthelloGameReader reader = new OthelloGameReader(archive)) {
+            writer.addAll(reader);
+        }
+        assertEquals(200, writer.getGames());
+        long entries;
+        try (OutputStream out = Files.newOutputStream(path)) {
+            entries = writer.write(out, 1);
+        }
+
+        try (OthelloOpeningBook book = new OthelloOpeningBook(path);
+             OthelloGameReader reader = new OthelloGameReader(archive)) {
+            assertEquals(entries, book.size());
+
+            // every position in the first plies of every game is in the
+            // book, and the book move is legal there
+            while (reader.next()) {
+                Othello.Color color = Othello.Color.BLACK;
+                for (int ply = 0; ply < 6; ++ply, color = color.opposite()) {
+                    if (reader.getPly(ply) == OthelloGameWriter.PASS) {
+                        continue;
+                    }
+                    OthelloBitBoard board = reader.replay(ply);
+                    int move = book.lookup(board, color);
+                    assertNotEquals(OthelloOpeningBook.NO_MOVE, move);
+                    assertNotEquals(0L, board.getFlips(move, color));
+                }
+            }
+
+            OthelloBitBoard late = new OthelloBitBoard(OthelloBitBoard.bit(0, 0), OthelloBitBoard.bit(0, 1));
+            assertEquals(OthelloOpeningBook.NO_MOVE, book.lookup(late, Othello.Color.WHITE));
+        }
+    }
+
+    @Test
+    public void testLookupPicksBestMove() throws Exception {
+        Path archive = folder.newFile().toPath(), path = folder.newFile().toPath();
+
+        // black opens d3 and wins twice, or c4 and wins once
+        try (OthelloGameWriter writer = new OthelloGameWriter(Files.newOutputStream(archive), "a")) {
+            Othello othello = new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class);
+            for (String move : new String[] { "d3", "d3", "c4" }) {
+                OthelloGameWriter.Game game = writer.newGame(0, 0, 0L);
+                game.ply(Othello.Color.BLACK, othello.getSquare(move).getIndex());
+                game.finish(new OthelloBitBoard(-1L >>> (move.equals("d3") ? 20 : 30), 0L));
+            }
+        }
+
+        OthelloOpeningBookWriter writer = new OthelloOpeningBookWriter();
+        try (OthelloGameReader reader = new OthelloGameReader(archive)) {
+            writer.addAll(reader);
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            assertEquals(1, writer.write(out, 2));
+        }
+
+        try (OthelloOpeningBook book = new OthelloOpeningBook(path)) {
+            Othello othello = new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class);
+            assertEquals(othello.getSquare("d3").getIndex(), book.lookup(othello.board, Othello.Color.BLACK));
+
+            OthelloPlayerMinimaxDecision player = new OthelloPlayerMinimaxDecision(othello, Othello.Color.BLACK);
+            player.setOpeningBook(book);
+            assertEquals(othello.getSquare("d3").getIndex(), player.getMove());
+            assertEquals(0, player.getDepthReached());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotABook() throws Exception {
+        new OthelloOpeningBook(record(1, 2L));
+    }
+
+    private Path record(int games, long seed) throws IOException {
+        Path path = folder.newFile().toPath();
+        OthelloTournament tournament = new OthelloTournament(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class, seed);
+        try (OthelloGameWriter writer = new OthelloGameWriter(Files.newOutputStream(path), "first", "second")) {
+            tournament.setWriter(writer);
+            tournament.play(games);
+        }
+        catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,110 @@
+package info.jayharris.othello;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OthelloPatternEvaluatorTest {
+
+    @Test
+    public void testPatterns() throws Exception {
+        assertEquals(46, OthelloPatterns.INSTANCE_TYPE.length);
+
+        int[] perType = new int[OthelloPatterns.TYPES];
+        for (int type : OthelloPatterns.INSTANCE_TYPE) {
+            ++perType[type];
+        }
+        assertArrayEquals(new int[] { 4, 4, 8, 4, 4, 4, 2, 4, 4, 4, 4 }, perType);
+    }
+
+    @Test
+    public void testIndicesAreMaintained() throws Exception {
+        Othello othello = new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class);
+        Othello.Board board = othello.board;
+        Random random = new Random(20160804L);
+        Deque<Othello.Board.Move> moves = new ArrayDeque<>();
+
+        assertIndices(board);
+        OthelloRandomGame game = new OthelloRandomGame(board, random);
+        while (!game.isOver()) {
+            moves.push(game.apply());
+
+            assertIndices(board);
+            assertIndices(board.copy());
+        }
+
+        while (!moves.isEmpty()) {
+            board.undoMove(moves.pop());
+            assertIndices(board);
+        }
+    }
+
+    @Test
+    public void testEvaluate() throws Exception {
+        Othello othello = new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class);
+        Othello.Board board = othello.board;
+        Random random = new Random(20160805L);
+        OthelloPatternEvaluator evaluator = new OthelloPatternEvaluator();
+        OthelloPositionalEvaluator positional = new OthelloPositionalEvaluator(0);
+
+        assertEquals(0, evaluator.evaluate(board, Othello.Color.BLACK));
+        OthelloRandomGame game = new OthelloRandomGame(board, random);
+        while (!game.isOver()) {
+            game.play();
+
+            int score = evaluator.evaluate(board, Othello.Color.BLACK);
+            assertEquals(-score, evaluator.evaluate(board, Othello.Color.WHITE));
+
+            // the default weights are the positional weights, less rounding
+            int expected = OthelloPatternEvaluator.DEFAULT_SCALE * positional.evaluate(board, Othello.Color.BLACK);
+            assertTrue(Math.abs(expected - score) <= OthelloPatternEvaluator.DEFAULT_SCALE * board.getOccupied().size());
+        }
+    }
+
+    @Test
+    public void testReadAndWrite() throws Exception {
+        OthelloPatternEvaluator evaluator = new OthelloPatternEvaluator();
+        evaluator.getWeights(OthelloPatterns.EDGE_2X)[1] = 12345;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        evaluator.write(out);
+        OthelloPatternEvaluator read = OthelloPatternEvaluator.read(new ByteArrayInputStream(out.toByteArray()));
+
+        for (int type = 0; type < OthelloPatterns.TYPES; ++type) {
+            assertArrayEquals(evaluator.getWeights(type), read.getWeights(type));
+        }
+    }
+
+    @Test
+    public void testDefaultIsShared() throws Exception {
+        OthelloPatternEvaluator shared = OthelloPatternEvaluator.getDefault();
+        assertSame(shared, OthelloPatternEvaluator.getDefault());
+
+        // a new evaluator gets its own copy, so changing it leaves the shared one alone
+        OthelloPatternEvaluator own = new OthelloPatternEvaluator();
+        int weight = shared.getWeights(OthelloPatterns.EDGE_2X)[1];
+        own.getWeights(OthelloPatterns.EDGE_2X)[1] = weight + 1;
+        assertEquals(weight, shared.getWeights(OthelloPatterns.EDGE_2X)[1]);
+    }
+
+    @Test
+    public void testPlayerUsesPatterns() throws Exception {
+        Othello othello = new Othello(
+                (game, color, random) -> new OthelloPlayerMinimaxDecision(game, color, 3, OthelloPatternEvaluator.getDefault()),
+                OthelloPlayerFactory.of(OthelloPlayerRandomMove.class), new Random(1L));
+        othello.play();
+        assertTrue(OthelloUtils.isGameOver(othello.board));
+    }
+
+    private static void assertIndices(Othello.Board board) {
+        for (int instance = 0; instance < board.patterns.length; ++instance) {
+            assertEquals(OthelloPatterns.index(board, instance), board.patterns[instance]);
+        }
+    }
+}
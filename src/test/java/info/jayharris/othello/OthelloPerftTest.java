@@ -0,0 +1,30 @@
+package info.jayharris.othello;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OthelloPerftTest {
+
+    @Test
+    public void testCount() throws Exception {
+        OthelloPerft perft = new OthelloPerft(8, 8);
+        for (int depth = 0; depth <= 8; ++depth) {
+            assertEquals("perft(" + depth + ")", OthelloPerft.reference(depth), perft.count(depth));
+        }
+    }
+
+    @Test
+    public void testCountIsRepeatable() throws Exception {
+        OthelloPerft perft = new OthelloPerft(6, 6);
+        long expected = perft.count(6);
+        assertTrue(expected > 0);
+        assertEquals(expected, perft.count(6));
+        assertEquals(4L, perft.count(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooDeep() throws Exception {
+        new OthelloPerft(8, 3).count(4);
+    }
+}
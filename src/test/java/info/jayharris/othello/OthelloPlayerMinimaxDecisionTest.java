@@ -0,0 +1,196 @@
+package info.jayharris.othello;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class OthelloPlayerMinimaxDecisionTest {
+
+    Othello othello;
+    OthelloBoardBuilder builder;
+
+    @Before
+    public void setUp() throws Exception {
+        othello = new Othello(mock(OthelloPlayer.class), mock(OthelloPlayer.class));
+        builder = new OthelloBoardBuilder(othello);
+    }
+
+    @Test
+    public void testGetMoveGreedy() throws Exception {
+        String s;
+        s = "       b" +
+            "       b" +
+            " wbbb  b" +
+            " w     b" +
+            "  w     " +
+            "   w    " +
+            "    w   " +
+            "     b  ";
+        builder.build(s);
+
+        OthelloPlayerMinimaxDecision player = new OthelloPlayerMinimaxDecision(
+                othello, Othello.Color.BLACK, 1, OthelloEvaluator.discDifference());
+
+        assertEquals(othello.getSquare("a3").getIndex(), player.getMove());
+        assertTrue(player.getNodesSearched() > 1);
+    }
+
+    @Test
+    public void testGetMoveMatchesMinimax() throws Exception {
+        OthelloEvaluator evaluator = new OthelloPositionalEvaluator();
+        Random random = new Random(20160730L);
+        int depth = 3;
+
+        for (int game = 0; game < 5; ++game) {
+            othello = new Othello(mock(OthelloPlayer.class), mock(OthelloPlayer.class));
+            OthelloRandomGame played = new OthelloRandomGame(othello.board, random);
+            for (int ply = 0; ply < 12 + 2 * game && !played.isOver(); ++ply) {
+                played.play();
+            }
+            if (played.isOver()) {
+                continue;
+            }
+            Othello.Color color = played.toMove();
+
+            OthelloPlayerMinimaxDecision player = new OthelloPlayerMinimaxDecision(othello, color, depth, evaluator);
+            Othello.Board.Square move = othello.board.getSquare(player.getMove());
+
+            int best = Integer.MIN_VALUE;
+            for (Othello.Board.Square square : OthelloUtils.getAllMoves(othello.board, color)) {
+                best = Math.max(best, -minimax(afterMove(othello.board, square, color), color.opposite(), depth - 1, evaluator));
+            }
+            assertEquals(best, -minimax(afterMove(othello.board, move, color), color.opposite(), depth - 1, evaluator));
+        }
+    }
+
+    @Test
+    public void testGetMoveWithinTimeBudget() throws Exception {
+        long budget = 100;
+        Othello.Color color = Othello.Color.BLACK;
+        OthelloPlayerMinimaxDecision player = new OthelloPlayerMinimaxDecision(
+                othello, color, new OthelloPositionalEvaluator(), budget);
+
+        for (int ply = 0; ply < 6 && othello.board.hasMove(color); ++ply) {
+            Othello.Board.Square move = othello.board.getSquare(player.getMove());
+            assertTrue(othello.board.isLegal(move, color));
+            assertTrue(player.getDepthReached() >= 1);
+            assertTrue(player.getElapsedMillis() < 2 * budget);
+
+            othello.board.setPiece(move, color);
+            if (othello.board.hasMove(color.opposite())) {
+                othello.board.setPiece(OthelloUtils.getRandomMove(othello.board, color.opposite()), color.opposite());
+            }
+        }
+    }
+
+    @Test
+    public void testGetMoveInParallel() throws Exception {
+        Othello.Color color = Othello.Color.BLACK;
+        OthelloPlayerMinimaxDecision player = new OthelloPlayerMinimaxDecision(
+                othello, color, 5, new OthelloPositionalEvaluator());
+        player.setThreads(4);
+
+        try {
+            for (int ply = 0; ply < 4 && othello.board.hasMove(color); ++ply) {
+                Othello.Board.Square move = othello.board.getSquare(player.getMove());
+                assertTrue(othello.board.isLegal(move, color));
+                assertEquals(5, player.getDepthReached());
+
+                othello.board.setPiece(move, color);
+                if (othello.board.hasMove(color.opposite())) {
+                    othello.board.setPiece(OthelloUtils.getRandomMove(othello.board, color.opposite()), color.opposite());
+                }
+            }
+        }
+        finally {
+            player.close();
+        }
+    }
+
+    @Test
+    public void testCloseStopsHelpers() throws Exception {
+        Set<Thread> before = searchThreads();
+        othello = new Othello((game, color, random) -> new OthelloPlayerMinimaxDecision(
+                game, color, 3, new OthelloPositionalEvaluator()), OthelloPlayerRandomMove::new, new Random(1L));
+        OthelloPlayerMinimaxDecision player = (OthelloPlayerMinimaxDecision) othello.black;
+        player.setThreads(3);
+        player.getMove();
+
+        Set<Thread> helpers = searchThreads();
+        helpers.removeAll(before);
+        assertEquals(2, helpers.size());
+
+        othello.close();
+        assertEquals(1, player.getThreads());
+        for (Thread helper : helpers) {
+            helper.join(5000);
+            assertFalse(helper.isAlive());
+        }
+
+        // still plays, on the calling thread
+        assertTrue(othello.board.isLegal(othello.board.getSquare(player.getMove()), Othello.Color.BLACK));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetMoveWithoutMove() throws Exception {
+        // black can't move; white can, at a1
+        Othello.Board board = othello.board;
+        board.reset();
+        for (int index = 1; index < 64; ++index) {
+            board.setDisc(index, index < 8 || index == 63 ? Othello.Color.WHITE : Othello.Color.BLACK);
+        }
+        assertFalse(board.hasMove(Othello.Color.BLACK));
+        assertTrue(board.hasMove(Othello.Color.WHITE));
+
+        OthelloPlayerMinimaxDecision player = new OthelloPlayerMinimaxDecision(othello, Othello.Color.BLACK);
+        player.getMove();
+    }
+
+    @Test
+    public void testPlaysFullGame() throws Exception {
+        othello = new Othello(OthelloPlayerMinimaxDecision.class, OthelloPlayerRandomMove.class);
+        assertTrue(othello.black instanceof OthelloPlayerMinimaxDecision);
+
+        othello.play();
+        assertTrue(OthelloUtils.isGameOver(othello.board));
+    }
+
+    private static Set<Thread> searchThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("othello-search-"))
+                .collect(Collectors.toSet());
+    }
+
+    private static Othello.Board afterMove(Othello.Board board, Othello.Board.Square square, Othello.Color color) {
+        Othello.Board copy = board.copy();
+        assertTrue(copy.setPiece(copy.getSquare(square.getRank(), square.getFile()), color));
+        return copy;
+    }
+
+    /**
+     * Plain negamax without pruning or move ordering, for reference.
+     */
+    private static int minimax(Othello.Board board, Othello.Color color, int depth, OthelloEvaluator evaluator) {
+        if (depth == 0) {
+            return evaluator.evaluate(board, color);
+        }
+        if (!board.hasMove(color)) {
+            if (!board.hasMove(color.opposite())) {
+                return OthelloPlayerMinimaxDecision.terminalScore(board, color);
+            }
+            return -minimax(board, color.opposite(), depth, evaluator);
+        }
+
+        int best = Integer.MIN_VALUE;
+        for (Othello.Board.Square square : OthelloUtils.getAllMoves(board, color)) {
+            best = Math.max(best, -minimax(afterMove(board, square, color), color.opposite(), depth - 1, evaluator));
+        }
+        return best;
+    }
+}
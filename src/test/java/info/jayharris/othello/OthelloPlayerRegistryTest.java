@@ -0,0 +1,102 @@
+package info.jayharris.othello;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OthelloPlayerRegistryTest {
+
+    /**
+     * A player without the usual constructor.
+     */
+    public static class Unbuildable extends OthelloPlayer {
+
+        public Unbuildable(Othello othello) {
+            super(othello, Othello.Color.BLACK);
+        }
+
+        @Override
+        public int getMove() {
+            return OthelloBoard.NO_MOVE;
+        }
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        OthelloPlayerRegistry registry = OthelloPlayerRegistry.defaults();
+        assertTrue(registry.getNames().contains(OthelloPlayerRegistry.KEYBOARD));
+
+        Othello othello = new Othello(registry.get(OthelloPlayerRegistry.MINIMAX_PATTERNS),
+                registry.get(OthelloPlayerRegistry.RANDOM), new Random(1L));
+        assertTrue(othello.black instanceof OthelloPlayerMinimaxDecision);
+        assertTrue(othello.white instanceof OthelloPlayerRandomMove);
+        assertEquals(Othello.Color.WHITE, othello.white.color);
+        assertSame(othello, othello.white.othello);
+    }
+
+    @Test
+    public void testComputers() throws Exception {
+        OthelloPlayerRegistry registry = OthelloPlayerRegistry.computers();
+        assertFalse(registry.contains(OthelloPlayerRegistry.KEYBOARD));
+        assertArrayEquals(new String[] { OthelloPlayerRegistry.RANDOM, OthelloPlayerRegistry.MINIMAX,
+                OthelloPlayerRegistry.MINIMAX_PATTERNS }, registry.getNames().toArray());
+    }
+
+    @Test
+    public void testServerOpponents() throws Exception {
+        OthelloPlayerRegistry registry = OthelloPlayerRegistry.serverOpponents();
+        assertEquals(OthelloPlayerRegistry.computers().getNames(), registry.getNames());
+
+        // each game gets a table of its own, but a small one
+        Othello first = new Othello(registry.get(OthelloPlayerRegistry.MINIMAX),
+                registry.get(OthelloPlayerRegistry.MINIMAX_PATTERNS), new Random(1L));
+        Othello second = new Othello(registry.get(OthelloPlayerRegistry.MINIMAX),
+                registry.get(OthelloPlayerRegistry.RANDOM), new Random(1L));
+        OthelloTranspositionTable table = ((OthelloPlayerMinimaxDecision) first.black).getTranspositionTable();
+        assertEquals(1 << OthelloPlayerRegistry.SERVER_TABLE_SIZE, table.size());
+        assertEquals(table.size(), ((OthelloPlayerMinimaxDecision) first.white).getTranspositionTable().size());
+        assertNotSame(table, ((OthelloPlayerMinimaxDecision) second.black).getTranspositionTable());
+
+        Othello standard = new Othello(OthelloPlayerRegistry.computers().get(OthelloPlayerRegistry.MINIMAX),
+                registry.get(OthelloPlayerRegistry.RANDOM), new Random(1L));
+        assertEquals(1 << OthelloPlayerMinimaxDecision.DEFAULT_TABLE_SIZE,
+                ((OthelloPlayerMinimaxDecision) standard.black).getTranspositionTable().size());
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        OthelloPlayerRegistry registry = new OthelloPlayerRegistry()
+                .register("shallow", (othello, color, random) -> new OthelloPlayerMinimaxDecision(
+                        othello, color, 1, OthelloEvaluator.discDifference()))
+                .register("random", OthelloPlayerRandomMove::new);
+
+        assertArrayEquals(new String[] { "shallow", "random" }, registry.getNames().toArray());
+
+        OthelloTournament tournament = new OthelloTournament(registry.get("shallow"), registry.get("random"), 1L);
+        tournament.setThreads(2);
+        assertEquals(20, tournament.play(20).getGames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterTwice() throws Exception {
+        OthelloPlayerRegistry.defaults().register(OthelloPlayerRegistry.RANDOM, OthelloPlayerRandomMove::new);
+    }
+
+    @Test
+    public void testUnknownName() throws Exception {
+        try {
+            OthelloPlayerRegistry.defaults().get("nobody");
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains(OthelloPlayerRegistry.MINIMAX));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnbuildableClassFails() throws Exception {
+        new Othello(Unbuildable.class, OthelloPlayerRandomMove.class);
+    }
+}
@@ -25,9 +25,22 @@ public class OthelloPlayerWithKeyboardTest {
         ((OthelloPlayerWithKeyboard) othello.white).reader = reader;
         ((OthelloPlayerWithKeyboard) othello.black).reader = reader;
 
-        assertEquals(othello.getSquare("c4"), othello.white.getMove());
-        assertEquals(othello.getSquare("e3"), othello.black.getMove());
-        assertEquals(othello.getSquare("f4"), othello.white.getMove());
-        assertEquals(othello.getSquare("f6"), othello.black.getMove());
+        assertEquals(othello.getSquare("c4").getIndex(), othello.white.getMove());
+        assertEquals(othello.getSquare("e3").getIndex(), othello.black.getMove());
+        assertEquals(othello.getSquare("f4").getIndex(), othello.white.getMove());
+        assertEquals(othello.getSquare("f6").getIndex(), othello.black.getMove());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testOneMovePerLine() throws Exception {
+        BufferedReader reader = mock(BufferedReader.class);
+        when(reader.readLine()).thenReturn("c4e3", "f4, c5", " d3 ");
+
+        OthelloPlayerWithKeyboard player = (OthelloPlayerWithKeyboard) othello.black;
+        player.reader = reader;
+
+        // lines with more than one move are asked again
+        assertEquals(othello.getSquare("d3").getIndex(), player.getMove());
+        verify(reader, times(3)).readLine();
+    }
+}
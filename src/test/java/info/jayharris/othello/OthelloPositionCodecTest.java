@@ -0,0 +1,163 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class OthelloPositionCodecTest {
+
+    static final String INITIAL =
+            "--------" +
+            "--------" +
+            "--------" +
+            "---wb---" +
+            "---bw---" +
+            "--------" +
+            "--------" +
+            "-------- b";
+
+    Othello othello;
+
+    @Before
+    public void setUp() throws Exception {
+        othello = new Othello(mock(OthelloPlayer.class), mock(OthelloPlayer.class));
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        assertEquals(INITIAL, OthelloPositionCodec.format(othello.board, Color.BLACK));
+        assertEquals(OthelloPositionCodec.TEXT_LENGTH, INITIAL.length());
+        assertEquals(INITIAL, OthelloPositionCodec.format(OthelloBitBoard.initial(), Color.BLACK));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<String> texts = new ArrayList<>();
+        ByteBuffer packed = ByteBuffer.allocate(64 * OthelloPositionCodec.PACKED_SIZE);
+        Board board = othello.board, text = new Board(), unpacked = new Board();
+        Random random = new Random(20160807L);
+
+        OthelloRandomGame game = new OthelloRandomGame(board, random);
+        while (!game.isOver()) {
+            game.play();
+            Color color = game.toMove();
+
+            String formatted = OthelloPositionCodec.format(board, color);
+            texts.add(formatted);
+            OthelloPositionCodec.pack(board, packed);
+
+            assertEquals(color, OthelloPositionCodec.parse(formatted, text));
+            assertSamePosition(board, text);
+        }
+
+        packed.flip();
+        for (String formatted : texts) {
+            OthelloPositionCodec.unpack(packed, unpacked);
+            assertEquals(formatted.substring(0, 64), OthelloPositionCodec.format(unpacked, Color.BLACK).substring(0, 64));
+        }
+        assertFalse(packed.hasRemaining());
+        assertSamePosition(board, unpacked);
+
+        assertArrayEquals(OthelloPositionCodec.pack(board), OthelloPositionCodec.pack(OthelloPositionCodec.unpack(
+                ByteBuffer.wrap(OthelloPositionCodec.pack(board)))));
+    }
+
+    @Test
+    public void testIntoBitBoard() throws Exception {
+        Board board = othello.board;
+        OthelloBitBoard parsed = new OthelloBitBoard(), unpacked = new OthelloBitBoard();
+        ByteBuffer packed = ByteBuffer.allocate(OthelloPositionCodec.PACKED_SIZE);
+        Random random = new Random(20161018L);
+
+        OthelloRandomGame game = new OthelloRandomGame(board, random);
+        while (!game.isOver()) {
+            game.play();
+            Color color = game.toMove();
+            String formatted = OthelloPositionCodec.format(board, color);
+
+            assertEquals(color, OthelloPositionCodec.parse(formatted, parsed));
+            assertEquals(formatted, OthelloPositionCodec.format(parsed, color));
+
+            packed.clear();
+            OthelloPositionCodec.pack(board, packed);
+            packed.flip();
+            OthelloPositionCodec.unpack(packed, unpacked);
+            assertEquals(formatted, OthelloPositionCodec.format(unpacked, color));
+        }
+    }
+
+    @Test
+    public void testParseOtherSpellings() throws Exception {
+        Board board = new Board();
+        assertEquals(Color.WHITE, OthelloPositionCodec.parse(INITIAL.replace('-', '.').replace('b', 'X').replace('w', 'O').substring(0, 64) + " w", board));
+        assertEquals(INITIAL.substring(0, 64) + " w", OthelloPositionCodec.format(board, Color.WHITE));
+    }
+
+    @Test
+    public void testOtherBoardSize() throws Exception {
+        OthelloPlayerFactory mock = (o, color, r) -> mock(OthelloPlayer.class);
+        Board board = new Othello(6, mock, mock, new Random()).board, parsed = new Othello(6, mock, mock, new Random()).board;
+
+        String formatted = OthelloPositionCodec.format(board, Color.WHITE);
+        assertEquals(38, formatted.length());
+        assertEquals(Color.WHITE, OthelloPositionCodec.parse(formatted, parsed));
+        assertSamePosition(board, parsed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWrongLength() throws Exception {
+        OthelloPositionCodec.parse(INITIAL.substring(1), othello.board);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseBadSquare() throws Exception {
+        OthelloPositionCodec.parse("?" + INITIAL.substring(1), othello.board);
+    }
+
+    @Test
+    public void testParseFailureLeavesBoard() throws Exception {
+        Board board = othello.board;
+        assertTrue(board.setPiece(board.getSquare("f5"), Color.BLACK));
+        String before = OthelloPositionCodec.format(board, Color.WHITE);
+
+        for (String text : new String[] { INITIAL.substring(0, 63) + "? b", INITIAL.substring(0, 64) + " -" }) {
+            try {
+                OthelloPositionCodec.parse(text, board);
+                fail(text);
+            }
+            catch (IllegalArgumentException e) {
+                assertEquals(before, OthelloPositionCodec.format(board, Color.WHITE));
+                assertEquals(5, board.getOccupied().size());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnpackOverlapping() throws Exception {
+        OthelloPositionCodec.unpack(ByteBuffer.wrap(new byte[] {
+                0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 3 }), othello.board);
+    }
+
+    private void assertSamePosition(Board expected, Board actual) {
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.getOccupied(), actual.getOccupied());
+        assertEquals(expected.getAccessible(), actual.getAccessible());
+        assertEquals(expected.getHash(), actual.getHash());
+        assertArrayEquals(expected.patterns, actual.patterns);
+        for (Color color : Color.values()) {
+            assertEquals(expected.getStableCount(color), actual.getStableCount(color));
+            assertEquals(expected.getFrontierCount(color), actual.getFrontierCount(color));
+            assertEquals(expected.getPotentialMobility(color), actual.getPotentialMobility(color));
+            assertEquals(expected.getMobility(color), actual.getMobility(color));
+        }
+    }
+}
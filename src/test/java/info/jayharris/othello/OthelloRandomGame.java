@@ -0,0 +1,82 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plays random legal moves on a board, for tests that want positions from
+ * real games. Black moves first, and a side with no legal move passes.
+ */
+class OthelloRandomGame {
+
+    final Board board;
+    private final Random random;
+    private Color color = Color.BLACK;
+
+    /**
+     * @param board the board to play on, in any position with black to move
+     * @param random picks the moves
+     */
+    OthelloRandomGame(Board board, Random random) {
+        this.board = board;
+        this.random = random;
+    }
+
+    boolean isOver() {
+        return OthelloUtils.isGameOver(board);
+    }
+
+    /**
+     * Gets the side to move, passing first if it has no legal move.
+     *
+     * @return the side to move
+     */
+    Color toMove() {
+        if (!board.hasMove(color)) {
+            color = color.opposite();
+        }
+        return color;
+    }
+
+    /**
+     * Picks a random legal move for {@link #toMove()}, without playing it.
+     *
+     * @return the move, or {@code null} if the game is over
+     */
+    Board.Square pick() {
+        return OthelloUtils.getRandomMove(board, toMove(), random);
+    }
+
+    /**
+     * Plays a random legal move.
+     */
+    void play() {
+        play(pick());
+    }
+
+    /**
+     * Plays {@code square}, which must be legal for {@link #toMove()}.
+     *
+     * @param square the move
+     */
+    void play(Board.Square square) {
+        assertTrue("illegal move " + square, board.setPiece(square, toMove()));
+        color = color.opposite();
+    }
+
+    /**
+     * Plays a random legal move with {@link Board#applyMove}, so that it
+     * can be taken back.
+     *
+     * @return the record of the move
+     */
+    Board.Move apply() {
+        Board.Move move = board.applyMove(pick(), toMove());
+        color = color.opposite();
+        return move;
+    }
+}
@@ -0,0 +1,187 @@
+package info.jayharris.othello;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class OthelloServerTest {
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    OthelloServer server;
+    Thread thread;
+
+    @Before
+    public void setUp() throws Exception {
+        // an opponent that can't even be set up, failing on the server's thread
+        OthelloPlayerRegistry opponents = OthelloPlayerRegistry.serverOpponents().register("broken", (othello, color, random) -> {
+            throw new IllegalStateException("broken");
+        });
+        server = new OthelloServer(new InetSocketAddress("localhost", 0), opponents, executor);
+        thread = new Thread(server, "othello-server-test");
+        thread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSocket() throws Exception {
+        try (Socket socket = new Socket()) {
+            socket.connect(server.getAddress(), 5000);
+            socket.setSoTimeout(5000);
+            play(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)),
+                 new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), true));
+        }
+    }
+
+    @Test
+    public void testPipes() throws Exception {
+        Pipe in = Pipe.open(), out = Pipe.open();
+        server.connect(in, out);
+        play(new BufferedReader(new InputStreamReader(Channels.newInputStream(out.source()), StandardCharsets.US_ASCII)),
+             new PrintWriter(new OutputStreamWriter(Channels.newOutputStream(in.sink()), StandardCharsets.US_ASCII), true));
+    }
+
+    @Test
+    public void testManyClients() throws Exception {
+        int clients = 20, games = 10;
+        Socket[] sockets = new Socket[clients];
+        BufferedReader[] readers = new BufferedReader[clients];
+        try {
+            // every client starts all its games before any is played out
+            for (int c = 0; c < clients; ++c) {
+                sockets[c] = new Socket();
+                sockets[c].connect(server.getAddress(), 5000);
+                sockets[c].setSoTimeout(5000);
+                readers[c] = new BufferedReader(new InputStreamReader(sockets[c].getInputStream(), StandardCharsets.US_ASCII));
+
+                PrintWriter writer = new PrintWriter(new OutputStreamWriter(sockets[c].getOutputStream(), StandardCharsets.US_ASCII));
+                for (int g = 0; g < games; ++g) {
+                    writer.print("new random white " + g + "\r\n");
+                }
+                writer.println("quit");
+                writer.flush();
+            }
+
+            for (int c = 0; c < clients; ++c) {
+                int started = 0, turns = 0;
+                String line;
+                while (!(line = readers[c].readLine()).equals("bye")) {
+                    started += line.startsWith("game ") ? 1 : 0;
+                }
+                // replies from the opponents' moves may come in after the bye
+                while ((line = readers[c].readLine()) != null) {
+                    turns += line.startsWith("turn ") ? 1 : 0;
+                }
+                assertEquals(games, started);
+                assertTrue(turns <= games);
+            }
+        }
+        finally {
+            for (Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFailureDropsOneClient() throws Exception {
+        try (Socket broken = new Socket(); Socket socket = new Socket()) {
+            broken.connect(server.getAddress(), 5000);
+            broken.setSoTimeout(5000);
+            socket.connect(server.getAddress(), 5000);
+            socket.setSoTimeout(5000);
+
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(broken.getOutputStream(), StandardCharsets.US_ASCII), true);
+            writer.println("new broken");
+            assertNull(new BufferedReader(new InputStreamReader(broken.getInputStream(), StandardCharsets.US_ASCII)).readLine());
+
+            // everyone else carries on
+            assertTrue(thread.isAlive());
+            play(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)),
+                 new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), true));
+        }
+    }
+
+    @Test
+    public void testClientThatDoesntRead() throws Exception {
+        Pipe in = Pipe.open(), out = Pipe.open();
+        server.connect(in, out);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(out.source()), StandardCharsets.US_ASCII));
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(Channels.newOutputStream(in.sink()), StandardCharsets.US_ASCII), true);
+
+        writer.println("new random black 20160810");
+        assertEquals("game 1 black", reader.readLine());
+
+        // far more replies than the server holds for one client, asked for
+        // before reading any; the server stops reading until they drain
+        int requests = 4 * OthelloServer.MAX_PENDING / 64;
+        Thread sender = new Thread(() -> {
+            for (int i = 0; i < requests; ++i) {
+                writer.println("board 1");
+            }
+            writer.println("quit");
+        });
+        sender.start();
+
+        int boards = 0;
+        String line;
+        while (!(line = reader.readLine()).equals("bye")) {
+            if (line.startsWith("board 1 ")) {
+                ++boards;
+            }
+        }
+        sender.join(5000);
+        assertEquals(requests, boards);
+        assertNull(reader.readLine());
+    }
+
+    /**
+     * Plays a game against the random player, always taking the first legal
+     * move, and checks the protocol along the way.
+     */
+    private void play(BufferedReader reader, PrintWriter writer) throws IOException {
+        Othello.Board board = Othello.newBoard(Othello.Board.DEFAULT_SQUARES_PER_SIDE);
+        int[] moves = new int[board.SQUARES_PER_SIDE * board.SQUARES_PER_SIDE];
+
+        writer.println("new random black 20160810");
+        assertEquals("game 1 black", reader.readLine());
+
+        String line;
+        while (!(line = reader.readLine()).startsWith("over ")) {
+            if (line.equals("turn 1")) {
+                writer.println("board 1");
+            }
+            else if (line.startsWith("board 1 ")) {
+                OthelloPositionCodec.parse(line.substring("board 1 ".length()), board);
+                assertTrue(board.getMoves(Othello.Color.BLACK, moves) > 0);
+                writer.println("move 1 " + OthelloNotation.toString(moves[0], board.SQUARES_PER_SIDE));
+            }
+            else {
+                assertTrue(line, line.startsWith("ply 1 "));
+            }
+        }
+
+        writer.println("quit");
+        assertEquals("bye", reader.readLine());
+        assertNull(reader.readLine());
+    }
+}
@@ -0,0 +1,251 @@
+package info.jayharris.othello;
+
+import info.jayharris.othello.Othello.Board;
+import info.jayharris.othello.Othello.Color;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OthelloSessionTest {
+
+    List<String> out = new ArrayList<>();
+    OthelloSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        // opponents move on the calling thread, so each command's replies
+        // are all in by the time it returns
+        session = new OthelloSession(OthelloPlayerRegistry.serverOpponents(), Runnable::run, out::add);
+    }
+
+    @Test
+    public void testNewGame() throws Exception {
+        assertTrue(session.handle("new random"));
+        assertEquals(Arrays.asList("game 1 black", "turn 1"), drain());
+
+        session.handle("board 1");
+        assertEquals(Arrays.asList("board 1 ---------------------------wb------bw--------------------------- b"), drain());
+
+        session.handle("move 1 f5");
+        List<String> replies = drain();
+        assertEquals(3, replies.size());
+        assertEquals("ply 1 black f5", replies.get(0));
+        assertTrue(replies.get(1).startsWith("ply 1 white "));
+        assertEquals("turn 1", replies.get(2));
+
+        // as white, the opponent moves first
+        session.handle("new random white 7");
+        replies = drain();
+        assertEquals(Arrays.asList("game 2 white", replies.get(1), "turn 2"), replies);
+        assertTrue(replies.get(1).startsWith("ply 2 black "));
+        assertEquals(2, session.getGameCount());
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        for (String command : new String[] { "hello", "new", "new keyboard", "new random green", "new random black x",
+                                             "move 1 f5", "board x", "close 1" }) {
+            session.handle(command);
+            List<String> replies = drain();
+            assertEquals(command, 1, replies.size());
+            assertTrue(command + ": " + replies.get(0), replies.get(0).startsWith("error "));
+        }
+        assertEquals(0, session.getGameCount());
+
+        session.handle("new random");
+        drain();
+        for (String command : new String[] { "move 1 a1", "move 1 z9", "move 1", "move 1 f5 d6" }) {
+            session.handle(command);
+            assertEquals(command, 1, drain().size());
+        }
+        session.handle("board 1");
+        assertTrue(drain().get(0).endsWith("---wb------bw--------------------------- b"));
+
+        assertFalse(session.handle("quit"));
+        assertEquals(Arrays.asList("bye"), drain());
+    }
+
+    @Test
+    public void testPlayToTheEnd() throws Exception {
+        session.handle("new minimax white 20160809");
+        Board board = Othello.newBoard(Board.DEFAULT_SQUARES_PER_SIDE);
+        int[] moves = new int[board.SQUARES_PER_SIDE * board.SQUARES_PER_SIDE];
+
+        String last = null;
+        for (int turns = 0; turns < 60; ++turns) {
+            List<String> replies = drain();
+            last = replies.get(replies.size() - 1);
+            if (!last.equals("turn 1")) {
+                break;
+            }
+
+            // play the first legal move on the session's own board
+            session.handle("board 1");
+            String position = drain().get(0).substring("board 1 ".length());
+            assertEquals(Color.WHITE, OthelloPositionCodec.parse(position, board));
+            assertTrue(board.getMoves(Color.WHITE, moves) > 0);
+            session.handle("move 1 " + OthelloNotation.toString(moves[0], board.SQUARES_PER_SIDE));
+        }
+
+        assertTrue(last, last.startsWith("over 1 "));
+        String[] discs = last.split(" ");
+        assertTrue(Integer.parseInt(discs[2]) + Integer.parseInt(discs[3]) <= 64);
+        assertEquals(0, session.getGameCount());
+
+        session.handle("move 1 a1");
+        assertEquals(Arrays.asList("error no game 1"), drain());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        List<Runnable> thinking = new ArrayList<>();
+        Executor later = thinking::add;
+        session = new OthelloSession(OthelloPlayerRegistry.serverOpponents(), later, out::add);
+
+        session.handle("new random white");
+        assertEquals(Arrays.asList("game 1 white"), drain());
+        session.handle("move 1 f5");
+        session.handle("board 1");
+        assertEquals(Arrays.asList("error 1 not your turn", "error 1 opponent is thinking"), drain());
+
+        session.handle("close 1");
+        assertEquals(Arrays.asList("closed 1"), drain());
+        assertEquals(0, session.getGameCount());
+
+        // the opponent finishes thinking after the game is gone, and says nothing
+        thinking.get(0).run();
+        assertEquals(0, drain().size());
+    }
+
+    @Test
+    public void testOpponentFails() throws Exception {
+        OthelloPlayerRegistry failing = new OthelloPlayerRegistry().register("failing", (othello, color, random) ->
+                new OthelloPlayerRandomMove(othello, color, random) {
+                    @Override
+                    public int getMove() {
+                        throw new IllegalStateException("failing");
+                    }
+                });
+        session = new OthelloSession(failing, Runnable::run, out::add);
+
+        session.handle("new failing white");
+        assertEquals(Arrays.asList("game 1 white", "error 1 opponent failed"), drain());
+        assertEquals(0, session.getGameCount());
+
+        session.handle("new failing");
+        drain();
+        session.handle("move 2 f5");
+        assertEquals(Arrays.asList("ply 2 black f5", "error 2 opponent failed"), drain());
+        assertEquals(0, session.getGameCount());
+    }
+
+    @Test
+    public void testPipelinedMoves() throws Exception {
+        // an opponent that takes a moment over each move, and notices if it's
+        // ever asked for two at once
+        AtomicInteger thinking = new AtomicInteger(), overlaps = new AtomicInteger();
+        OthelloPlayerRegistry slow = new OthelloPlayerRegistry().register("slow", (othello, color, random) ->
+                new OthelloPlayerRandomMove(othello, color, random) {
+                    @Override
+                    public int getMove() {
+                        if (thinking.incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        try {
+                            Thread.sleep(1);
+                            return super.getMove();
+                        }
+                        catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        finally {
+                            thinking.decrementAndGet();
+                        }
+                    }
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+        session = new OthelloSession(slow, executor, line -> {
+            errors.addAndGet(line.startsWith("error ") ? 1 : 0);
+            lines.add(line);
+        });
+
+        try {
+            for (int game = 1; game <= 10; ++game) {
+                String id = Integer.toString(game);
+                session.handle("new slow black " + game);
+                assertEquals("game " + id + " black", lines.poll(5, TimeUnit.SECONDS));
+
+                // the client keeps its own board from the plies, and sends its
+                // move as soon as it sees the opponent's, without waiting for
+                // the turn; the turn that follows has been answered already
+                Board board = Othello.newBoard(Board.DEFAULT_SQUARES_PER_SIDE);
+                boolean answered = false;
+                String line;
+                while (!(line = lines.poll(5, TimeUnit.SECONDS)).startsWith("over ")) {
+                    String[] words = line.split(" ");
+                    assertEquals(line, id, words[1]);
+                    if (words[0].equals("error")) {
+                        // a move sent too early
+                        assertEquals("error " + id + " not your turn", line);
+                        continue;
+                    }
+                    boolean move;
+                    if (words[0].equals("ply")) {
+                        Color color = words[2].equals("black") ? Color.BLACK : Color.WHITE;
+                        if (!words[3].equals("pass")) {
+                            assertTrue(line, board.setPiece(board.getSquare(words[3]), color));
+                        }
+                        move = color == Color.WHITE && board.hasMove(Color.BLACK);
+                    }
+                    else {
+                        assertEquals("turn", words[0]);
+                        move = !answered;
+                        answered = false;
+                    }
+
+                    if (move) {
+                        String square = OthelloUtils.getAllMoves(board, Color.BLACK).iterator().next().getAlgebraicNotation();
+                        int before;
+                        do {
+                            before = errors.get();
+                            session.handle("move " + id + " " + square);
+                        }
+                        while (errors.get() > before);
+                        answered = words[0].equals("ply");
+
+                        // a move is only ever taken once the turn is out
+                        assertTrue(!answered || lines.contains("turn " + id));
+                    }
+                }
+                assertTrue(OthelloUtils.isGameOver(board));
+                assertEquals("over " + id + " " + board.getDiscCount(Color.BLACK) + " " + board.getDiscCount(Color.WHITE), line);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, overlaps.get());
+        assertEquals(0, session.getGameCount());
+    }
+
+    private List<String> drain() {
+        List<String> lines = new ArrayList<>(out);
+        out.clear();
+        return lines;
+    }
+}
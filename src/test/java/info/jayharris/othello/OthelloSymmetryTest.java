@@ -0,0 +1,77 @@
+package info.jayharris.othello;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class OthelloSymmetryTest {
+
+    @Test
+    public void testTransform() throws Exception {
+        Random random = new Random(20160806L);
+
+        for (int symmetry = 0; symmetry < OthelloSymmetry.COUNT; ++symmetry) {
+            // the bitboard transforms agree with the square transforms
+            for (int square = 0; square < 64; ++square) {
+                assertEquals(1L << OthelloSymmetry.transform(square, symmetry), OthelloSymmetry.transform(1L << square, symmetry));
+            }
+            for (int i = 0; i < 100; ++i) {
+                long mask = random.nextLong();
+                assertEquals(mask, OthelloSymmetry.transform(
+                        OthelloSymmetry.transform(mask, symmetry), OthelloSymmetry.inverse(symmetry)));
+            }
+        }
+
+        int a1 = OthelloBitBoard.index(0, 0), b1 = OthelloBitBoard.index(0, 1);
+        assertEquals(OthelloBitBoard.index(7, 0), OthelloSymmetry.transform(a1, OthelloSymmetry.FLIP_RANKS));
+        assertEquals(OthelloBitBoard.index(0, 7), OthelloSymmetry.transform(a1, OthelloSymmetry.FLIP_FILES));
+        assertEquals(OthelloBitBoard.index(1, 0), OthelloSymmetry.transform(b1, OthelloSymmetry.TRANSPOSE));
+    }
+
+    @Test
+    public void testSymmetriesAreDistinct() throws Exception {
+        Set<Long> images = new HashSet<>();
+        long mask = OthelloBitBoard.bit(0, 1) | OthelloBitBoard.bit(0, 2) | OthelloBitBoard.bit(1, 2);
+        for (int symmetry = 0; symmetry < OthelloSymmetry.COUNT; ++symmetry) {
+            images.add(OthelloSymmetry.transform(mask, symmetry));
+        }
+        assertEquals(OthelloSymmetry.COUNT, images.size());
+    }
+
+    @Test
+    public void testCanonicalize() throws Exception {
+        Random random = new Random(20160807L);
+
+        for (int i = 0; i < 100; ++i) {
+            long black = random.nextLong(), white = random.nextLong() & ~black;
+            OthelloSymmetry.Canonical canonical = OthelloSymmetry.canonicalize(new OthelloBitBoard(black, white));
+            assertEquals(OthelloSymmetry.transform(black, canonical.getSymmetry()), canonical.getBoard().getBlack());
+            assertEquals(OthelloSymmetry.transform(white, canonical.getSymmetry()), canonical.getBoard().getWhite());
+
+            // every image of a position has the same canonical form
+            for (int symmetry = 0; symmetry < OthelloSymmetry.COUNT; ++symmetry) {
+                OthelloBitBoard image = new OthelloBitBoard(
+                        OthelloSymmetry.transform(black, symmetry), OthelloSymmetry.transform(white, symmetry));
+                assertEquals(canonical.getBoard(), OthelloSymmetry.canonicalize(image).getBoard());
+            }
+        }
+    }
+
+    @Test
+    public void testCanonicalizeBoard() throws Exception {
+        Othello othello = new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class);
+        othello.board.setPiece(othello.getSquare("d3"), Othello.Color.BLACK);
+        OthelloSymmetry.Canonical d3 = OthelloSymmetry.canonicalize(othello.board);
+
+        // the four first moves are all the same position
+        for (String move : new String[] { "c4", "f5", "e6" }) {
+            othello = new Othello(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class);
+            othello.board.setPiece(othello.getSquare(move), Othello.Color.BLACK);
+            assertEquals(d3.getBoard(), OthelloSymmetry.canonicalize(othello.board).getBoard());
+        }
+    }
+}
@@ -26,13 +26,13 @@ public class OthelloTest {
     @Before
     public void setUp() throws Exception {
         OthelloPlayer black = mock(OthelloPlayer.class), white = mock(OthelloPlayer.class);
-        Answer nextMove = new Answer<Othello.Board.Square>() {
+        Answer nextMove = new Answer<Integer>() {
             Iterator<String> iter = ImmutableList.
                     of("c4", "c5", "e6", "f5", "c6", "b5", "f4", "d6", "c3", "a4", "d7").
                     iterator();
 
-            public Othello.Board.Square answer(InvocationOnMock mock) {
-                return othello.getSquare(iter.next());
+            public Integer answer(InvocationOnMock mock) {
+                return othello.getSquare(iter.next()).getIndex();
             }
         };
 
@@ -0,0 +1,68 @@
+package info.jayharris.othello;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OthelloTournamentTest {
+
+    @Test
+    public void testPlay() throws Exception {
+        OthelloTournament tournament = new OthelloTournament(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class, 20160803L);
+        tournament.setThreads(4);
+
+        OthelloTournament.Result result = tournament.play(1000);
+        assertEquals(1000, result.getGames());
+        assertEquals(result.getGames(), result.getWins() + result.getLosses() + result.getDraws());
+        assertTrue(result.getWins() > 0 && result.getLosses() > 0);
+        assertTrue(result.getScore() > 0.4 && result.getScore() < 0.6);
+        assertTrue(result.getStandardError() > 0.0);
+    }
+
+    @Test
+    public void testPlayIsReproducible() throws Exception {
+        OthelloTournament tournament = new OthelloTournament(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class, 20160803L);
+
+        tournament.setThreads(1);
+        OthelloTournament.Result expected = tournament.play(600);
+        tournament.setThreads(3);
+        OthelloTournament.Result actual = tournament.play(600);
+
+        assertEquals(expected.getWins(), actual.getWins());
+        assertEquals(expected.getLosses(), actual.getLosses());
+        assertEquals(expected.getDiscDifferential(), actual.getDiscDifferential());
+        assertEquals(expected.getStandardError(), actual.getStandardError(), 1e-9);
+
+        OthelloTournament other = new OthelloTournament(OthelloPlayerRandomMove.class, OthelloPlayerRandomMove.class, 20160804L);
+        assertNotEquals(expected.getDiscDifferential(), other.play(600).getDiscDifferential());
+    }
+
+    @Test
+    public void testColorsAlternate() throws Exception {
+        AtomicInteger black = new AtomicInteger(), white = new AtomicInteger();
+        OthelloPlayerFactory random = OthelloPlayerFactory.of(OthelloPlayerRandomMove.class);
+
+        // players are reused between games, so count the games each starts
+        OthelloTournament tournament = new OthelloTournament((othello, color, r) -> {
+            AtomicInteger games = color == Othello.Color.BLACK ? black : white;
+            games.incrementAndGet();
+            return new OthelloPlayerRandomMove(othello, color, r) {
+                @Override
+                public void reset() {
+                    games.incrementAndGet();
+                }
+            };
+        }, random, 0L);
+        tournament.play(OthelloTournament.BATCH_SIZE + 1);
+
+        assertEquals(OthelloTournament.BATCH_SIZE / 2 + 1, black.get());
+        assertEquals(OthelloTournament.BATCH_SIZE / 2, white.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPlayerWithoutConstructor() throws Exception {
+        OthelloPlayerFactory.of(OthelloPlayer.class);
+    }
+}
@@ -0,0 +1,57 @@
+package info.jayharris.othello;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OthelloTranspositionTableTest {
+
+    OthelloTranspositionTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new OthelloTranspositionTable(4);
+    }
+
+    @Test
+    public void testStoreAndProbe() throws Exception {
+        long key = 0x0123456789abcdefL, entry;
+
+        assertEquals(0L, table.probe(key));
+
+        table.store(key, 5, -1234, OthelloTranspositionTable.LOWER, 37);
+        entry = table.probe(key);
+        assertNotEquals(0L, entry);
+        assertEquals(5, OthelloTranspositionTable.depth(entry));
+        assertEquals(-1234, OthelloTranspositionTable.score(entry));
+        assertEquals(OthelloTranspositionTable.LOWER, OthelloTranspositionTable.bound(entry));
+        assertEquals(37, OthelloTranspositionTable.move(entry));
+
+        table.store(key, 2, 99, OthelloTranspositionTable.EXACT, OthelloTranspositionTable.NO_MOVE);
+        entry = table.probe(key);
+        assertEquals(2, OthelloTranspositionTable.depth(entry));
+        assertEquals(OthelloTranspositionTable.NO_MOVE, OthelloTranspositionTable.move(entry));
+
+        assertEquals(0L, table.probe(key ^ 1L << 40));
+    }
+
+    @Test
+    public void testDepthPreferredReplacement() throws Exception {
+        // same slot (the low bits of key ^ key >>> 32 agree), different keys
+        long deep = 0x0000000100000003L, shallow = 0x0000000200000000L;
+
+        table.store(deep, 8, 10, OthelloTranspositionTable.EXACT, 1);
+        table.store(shallow, 3, 20, OthelloTranspositionTable.EXACT, 2);
+        assertNotEquals(0L, table.probe(deep));
+        assertEquals(0L, table.probe(shallow));
+
+        table.newSearch();
+        table.store(shallow, 3, 20, OthelloTranspositionTable.EXACT, 2);
+        assertEquals(0L, table.probe(deep));
+        assertNotEquals(0L, table.probe(shallow));
+
+        table.clear();
+        assertEquals(0L, table.probe(shallow));
+    }
+}